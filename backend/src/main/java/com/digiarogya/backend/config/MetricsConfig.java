@@ -0,0 +1,99 @@
+package com.digiarogya.backend.config;
+
+import com.digiarogya.backend.security.LoginThrottle;
+import com.digiarogya.backend.security.PasswordHasher;
+import com.digiarogya.backend.security.TokenClaimsCache;
+import com.digiarogya.backend.service.AuditLogWriter;
+import com.digiarogya.backend.service.BlobDeletionService;
+import com.digiarogya.backend.service.DownloadUrlCache;
+import com.digiarogya.backend.service.PreviewService;
+import com.digiarogya.backend.service.UserIdentityCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Request, repository and Hikari meters come from Spring Boot's
+ * auto-configuration. This adds {@code @Timed} support for the service
+ * classes and publishes the counters our own queues and caches keep as
+ * plain getters. Gauges and function counters read those getters at scrape
+ * time, so the code paths themselves pay nothing extra.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder auditWriterMetrics(AuditLogWriter writer) {
+        return registry -> {
+            Gauge.builder("audit.writer.queue.depth", writer, AuditLogWriter::getQueueDepth).register(registry);
+            FunctionCounter.builder("audit.writer.written", writer, AuditLogWriter::getWrittenCount).register(registry);
+            FunctionCounter.builder("audit.writer.spilled", writer, AuditLogWriter::getSpilledCount).register(registry);
+            FunctionCounter.builder("audit.writer.flushes", writer, AuditLogWriter::getFlushCount).register(registry);
+            Gauge.builder("audit.writer.flush.last", writer, AuditLogWriter::getLastFlushMillis)
+                    .baseUnit("milliseconds").register(registry);
+            Gauge.builder("audit.writer.flush.max", writer, AuditLogWriter::getMaxFlushMillis)
+                    .baseUnit("milliseconds").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(DownloadUrlCache downloadUrlCache, UserIdentityCache userIdentityCache,
+                                    TokenClaimsCache tokenClaimsCache) {
+        return registry -> {
+            cache(registry, "download_urls", downloadUrlCache,
+                    DownloadUrlCache::getHits, DownloadUrlCache::getMisses, DownloadUrlCache::getSize);
+            cache(registry, "user_identities", userIdentityCache,
+                    UserIdentityCache::getHits, UserIdentityCache::getMisses, UserIdentityCache::getSize);
+            FunctionCounter.builder("app.cache.evictions", userIdentityCache, UserIdentityCache::getEvictions)
+                    .tag("cache", "user_identities").register(registry);
+            cache(registry, "token_claims", tokenClaimsCache,
+                    TokenClaimsCache::getHits, TokenClaimsCache::getMisses, TokenClaimsCache::getSize);
+        };
+    }
+
+    @Bean
+    public MeterBinder blobMetrics(BlobDeletionService deletionService, PreviewService previewService) {
+        return registry -> {
+            FunctionCounter.builder("blob.deletion.deleted", deletionService, BlobDeletionService::getDeletedCount)
+                    .register(registry);
+            FunctionCounter.builder("blob.deletion.failed", deletionService, BlobDeletionService::getFailedCount)
+                    .register(registry);
+            Gauge.builder("preview.queue.size", previewService, PreviewService::getQueueSize).register(registry);
+            FunctionCounter.builder("preview.rendered", previewService, PreviewService::getRenderedCount)
+                    .register(registry);
+            FunctionCounter.builder("preview.failed", previewService, PreviewService::getFailedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder authMetrics(PasswordHasher passwordHasher, LoginThrottle loginThrottle) {
+        return registry -> {
+            Gauge.builder("auth.hashing.queue.size", passwordHasher, PasswordHasher::getQueueSize).register(registry);
+            Gauge.builder("auth.hashing.active", passwordHasher, PasswordHasher::getActiveCount).register(registry);
+            FunctionCounter.builder("auth.hashing.rejected", passwordHasher, PasswordHasher::getRejected)
+                    .register(registry);
+            FunctionCounter.builder("auth.throttled", loginThrottle, LoginThrottle::getThrottled).register(registry);
+        };
+    }
+
+    private static <T> void cache(MeterRegistry registry, String name, T cache,
+                                  ToDoubleFunction<T> hits,
+                                  ToDoubleFunction<T> misses,
+                                  ToDoubleFunction<T> size) {
+        FunctionCounter.builder("app.cache.gets", cache, hits).tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("app.cache.gets", cache, misses).tags("cache", name, "result", "miss").register(registry);
+        Gauge.builder("app.cache.size", cache, size).tag("cache", name).register(registry);
+    }
+}
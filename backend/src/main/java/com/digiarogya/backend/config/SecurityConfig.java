@@ -1,6 +1,10 @@
 package com.digiarogya.backend.config;
 
+import com.digiarogya.backend.security.BCryptCostCalibrator;
 import com.digiarogya.backend.security.JwtFilter;
+import com.digiarogya.backend.security.TokenClaimsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,12 +19,13 @@ import org.springframework.web.cors.CorsConfigurationSource;
 public class SecurityConfig {
 
     @Bean
-    public JwtFilter jwtFilter() {
-        return new JwtFilter();
+    public JwtFilter jwtFilter(TokenClaimsCache tokenClaimsCache, MeterRegistry meterRegistry) {
+        return new JwtFilter(tokenClaimsCache, meterRegistry);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource,
+                                                   JwtFilter jwtFilter) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
@@ -30,14 +35,23 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().permitAll()
                 )
-                .addFilterBefore(jwtFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * BCrypt at the calibrated cost, or at auth.bcrypt.strength when calibration is off
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.bcrypt.calibrate:true}") boolean calibrate,
+            @Value("${auth.bcrypt.target-ms:250}") long targetMs,
+            @Value("${auth.bcrypt.strength:10}") int strength,
+            @Value("${auth.bcrypt.max-strength:14}") int maxStrength
+    ) {
+        int cost = calibrate ? BCryptCostCalibrator.calibrate(targetMs, strength, maxStrength) : strength;
+        return new BCryptPasswordEncoder(cost);
     }
 }
 
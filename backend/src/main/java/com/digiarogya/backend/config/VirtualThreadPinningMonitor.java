@@ -0,0 +1,109 @@
+package com.digiarogya.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches for virtual threads that block while pinned to their carrier
+ * (inside synchronized, or in a native frame), which quietly turns a
+ * virtual thread back into a platform thread. Only active with
+ * spring.threads.virtual.enabled=true.
+ *
+ * Pins come from the JDK's own jdk.VirtualThreadPinned flight recorder
+ * event, so nothing is sampled; each one is timed as jvm.threads.virtual.pinned
+ * and the first pin from each of our call sites is logged with its stack.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.digiarogya.";
+
+    private final Duration threshold;
+    private final Timer pinnedTimer;
+    private final AtomicLong pinned = new AtomicLong();
+    // Call sites already logged, so a hot pin does not flood the log
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${threads.virtual.pinned-threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    public long getPinnedCount() {
+        return pinned.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.incrementAndGet();
+        pinnedTimer.record(event.getDuration());
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String callSite = stackTrace == null ? "unknown" : callSite(stackTrace);
+        if (reported.add(callSite)) {
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), callSite,
+                    stackTrace == null ? "" : format(stackTrace));
+        }
+    }
+
+    // Our innermost frame, or the JDK's when the pin has no frame of ours
+    private static String callSite(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return frame(frame);
+            }
+        }
+        return stackTrace.getFrames().isEmpty() ? "unknown" : frame(stackTrace.getFrames().get(0));
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        StringBuilder trace = new StringBuilder();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            trace.append("\n\tat ").append(frame(frame));
+        }
+        return trace.toString();
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
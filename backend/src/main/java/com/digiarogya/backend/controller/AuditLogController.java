@@ -1,9 +1,8 @@
 package com.digiarogya.backend.controller;
 
 import com.digiarogya.backend.dto.PaginatedAuditLogResponse;
-import com.digiarogya.backend.security.JwtUtil;
 import com.digiarogya.backend.service.AuditLogService;
-import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,14 +18,12 @@ public class AuditLogController {
 
     @GetMapping
     public ResponseEntity<PaginatedAuditLogResponse> getAuditLogs(
-            @RequestHeader("Authorization") String authHeader,
+            HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
-        String token = authHeader.replace("Bearer ", "");
-        Claims claims = JwtUtil.parseToken(token);
-        Long userId = Long.parseLong(claims.getSubject());
-        String role = claims.get("role", String.class);
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        String role = (String) request.getAttribute("role");
 
         PaginatedAuditLogResponse response = auditLogService.getAuditLogs(userId, role, page, size);
         return ResponseEntity.ok(response);
@@ -0,0 +1,84 @@
+package com.digiarogya.backend.controller;
+
+import com.digiarogya.backend.dto.CreateUploadSessionRequest;
+import com.digiarogya.backend.dto.FileUploadResponse;
+import com.digiarogya.backend.dto.UploadSessionResponse;
+import com.digiarogya.backend.service.ChunkedUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Resumable chunked uploads: create a session, PUT each chunk as the raw
+ * request body, then commit.
+ */
+@RestController
+@RequestMapping("/api/files/uploads")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public ChunkedUploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            HttpServletRequest request,
+            @RequestBody CreateUploadSessionRequest body
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        String role = (String) request.getAttribute("role");
+
+        return ResponseEntity.ok(chunkedUploadService.createSession(userId, role, body));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getSession(
+            HttpServletRequest request,
+            @PathVariable String uploadId
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+
+        return ResponseEntity.ok(chunkedUploadService.getSession(uploadId, userId));
+    }
+
+    /**
+     * The body is read as a stream and is never buffered by the server
+     */
+    @PutMapping("/{uploadId}/chunks/{index}")
+    public ResponseEntity<UploadSessionResponse> putChunk(
+            HttpServletRequest request,
+            @PathVariable String uploadId,
+            @PathVariable int index
+    ) throws IOException {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+
+        return ResponseEntity.ok(chunkedUploadService.putChunk(
+                uploadId, userId, index, request.getContentLengthLong(), request.getInputStream()));
+    }
+
+    @PostMapping("/{uploadId}/commit")
+    public ResponseEntity<FileUploadResponse> commit(
+            HttpServletRequest request,
+            @PathVariable String uploadId
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+
+        return ResponseEntity.ok(chunkedUploadService.commit(uploadId, userId));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(
+            HttpServletRequest request,
+            @PathVariable String uploadId
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+
+        chunkedUploadService.abort(uploadId, userId);
+        return ResponseEntity.ok().build();
+    }
+}
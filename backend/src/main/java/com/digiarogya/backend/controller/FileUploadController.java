@@ -1,22 +1,28 @@
 package com.digiarogya.backend.controller;
 
+import com.digiarogya.backend.dto.ConfirmUploadRequest;
+import com.digiarogya.backend.dto.DirectUploadRequest;
+import com.digiarogya.backend.dto.DirectUploadResponse;
 import com.digiarogya.backend.dto.FileUploadResponse;
 import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.PreviewStatus;
 import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.StoredBlob;
 import com.digiarogya.backend.exception.AccessDeniedException;
 import com.digiarogya.backend.exception.AccessRequiredException;
-import com.digiarogya.backend.repository.AccessRepository;
+import com.digiarogya.backend.exception.ValidationException;
 import com.digiarogya.backend.repository.PatientRecordRepository;
 import com.digiarogya.backend.repository.RecordAttachmentRepository;
-import com.digiarogya.backend.service.AzureBlobService;
+import com.digiarogya.backend.service.AccessGrantCache;
+import com.digiarogya.backend.service.AttachmentService;
+import com.digiarogya.backend.service.DirectUploadService;
+import com.digiarogya.backend.service.DownloadUrlCache;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -24,21 +30,27 @@ import java.util.Map;
 @RequestMapping("/api/files")
 public class FileUploadController {
 
-    private final AzureBlobService azureBlobService;
+    private final DownloadUrlCache downloadUrlCache;
     private final PatientRecordRepository patientRecordRepository;
     private final RecordAttachmentRepository recordAttachmentRepository;
-    private final AccessRepository accessRepository;
+    private final AccessGrantCache accessGrantCache;
+    private final AttachmentService attachmentService;
+    private final DirectUploadService directUploadService;
 
     public FileUploadController(
-            AzureBlobService azureBlobService,
+            DownloadUrlCache downloadUrlCache,
             PatientRecordRepository patientRecordRepository,
             RecordAttachmentRepository recordAttachmentRepository,
-            AccessRepository accessRepository
+            AccessGrantCache accessGrantCache,
+            AttachmentService attachmentService,
+            DirectUploadService directUploadService
     ) {
-        this.azureBlobService = azureBlobService;
+        this.downloadUrlCache = downloadUrlCache;
         this.patientRecordRepository = patientRecordRepository;
         this.recordAttachmentRepository = recordAttachmentRepository;
-        this.accessRepository = accessRepository;
+        this.accessGrantCache = accessGrantCache;
+        this.attachmentService = attachmentService;
+        this.directUploadService = directUploadService;
     }
 
     /**
@@ -61,51 +73,64 @@ public class FileUploadController {
                 .orElseThrow(() -> new AccessDeniedException("Record not found"));
 
         // Verify doctor has access to this patient
-        boolean hasAccess = accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(
-                record.getPatientId(), userId, Instant.now()
-        );
+        boolean hasAccess = accessGrantCache.hasActiveAccess(record.getPatientId(), userId);
 
         if (!hasAccess) {
             throw new AccessRequiredException("You don't have access to this patient's records");
         }
 
-        List<FileUploadResponse> responses = new ArrayList<>();
-
+        List<RecordAttachment> attachments;
         try {
-            for (MultipartFile file : files) {
-                String blobUrl = azureBlobService.uploadFile(file, record.getPatientId(), recordId);
-
-                RecordAttachment attachment = new RecordAttachment();
-                attachment.setRecord(record);
-                attachment.setFileName(file.getOriginalFilename());
-                attachment.setBlobUrl(blobUrl);
-                attachment.setFileType(file.getContentType());
-                attachment.setFileSize(file.getSize());
-
-                attachment = recordAttachmentRepository.save(attachment);
-
-                responses.add(new FileUploadResponse(
-                        attachment.getId(),
-                        attachment.getFileName(),
-                        blobUrl,
-                        attachment.getFileType(),
-                        attachment.getFileSize()
-                ));
-            }
+            attachments = attachmentService.uploadFiles(record, files);
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload files: " + e.getMessage());
         }
 
+        List<FileUploadResponse> responses = attachments.stream()
+                .map(FileUploadResponse::from)
+                .toList();
+
         return ResponseEntity.ok(responses);
     }
 
     /**
-     * Get download URL for a file
+     * Get a short-lived URL to upload one file straight to storage
+     */
+    @PostMapping("/upload-url/{recordId}")
+    public ResponseEntity<DirectUploadResponse> getUploadUrl(
+            HttpServletRequest request,
+            @PathVariable Long recordId,
+            @RequestBody DirectUploadRequest body
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        String role = (String) request.getAttribute("role");
+
+        return ResponseEntity.ok(directUploadService.issueUploadUrl(userId, role, recordId, body));
+    }
+
+    /**
+     * Confirm a direct upload and attach it to the record
+     */
+    @PostMapping("/confirm/{recordId}")
+    public ResponseEntity<FileUploadResponse> confirmUpload(
+            HttpServletRequest request,
+            @PathVariable Long recordId,
+            @RequestBody ConfirmUploadRequest body
+    ) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        String role = (String) request.getAttribute("role");
+
+        return ResponseEntity.ok(directUploadService.confirmUpload(userId, role, recordId, body));
+    }
+
+    /**
+     * Get download URL for a file, or for its preview with variant=preview
      */
     @GetMapping("/download/{attachmentId}")
     public ResponseEntity<Map<String, String>> getDownloadUrl(
             HttpServletRequest request,
-            @PathVariable Long attachmentId
+            @PathVariable Long attachmentId,
+            @RequestParam(defaultValue = DownloadUrlCache.ORIGINAL) String variant
     ) {
         Long userId = Long.valueOf((String) request.getAttribute("userId"));
         String role = (String) request.getAttribute("role");
@@ -121,9 +146,7 @@ public class FileUploadController {
                 throw new AccessDeniedException("You can only access your own records");
             }
         } else if ("DOCTOR".equals(role)) {
-            boolean hasAccess = accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(
-                    record.getPatientId(), userId, Instant.now()
-            );
+            boolean hasAccess = accessGrantCache.hasActiveAccess(record.getPatientId(), userId);
             if (!hasAccess) {
                 throw new AccessRequiredException("You don't have access to this patient's records");
             }
@@ -131,8 +154,17 @@ public class FileUploadController {
             throw new AccessDeniedException("Access denied");
         }
 
-        // Generate SAS URL valid for 30 minutes
-        String downloadUrl = azureBlobService.generateDownloadUrl(attachment.getBlobUrl(), 30);
+        // Signed URLs are reused until they near expiry
+        String downloadUrl;
+        if (DownloadUrlCache.PREVIEW.equals(variant)) {
+            StoredBlob blob = attachment.getBlob();
+            if (blob == null || blob.getPreviewStatus() != PreviewStatus.READY) {
+                throw new ValidationException("No preview is available for this attachment");
+            }
+            downloadUrl = downloadUrlCache.getDownloadUrl(attachment.getId(), DownloadUrlCache.PREVIEW, blob.getPreviewUrl());
+        } else {
+            downloadUrl = downloadUrlCache.getDownloadUrl(attachment.getId(), attachment.getBlobUrl());
+        }
 
         return ResponseEntity.ok(Map.of(
                 "downloadUrl", downloadUrl,
@@ -160,9 +192,7 @@ public class FileUploadController {
                 throw new AccessDeniedException("You can only access your own records");
             }
         } else if ("DOCTOR".equals(role)) {
-            boolean hasAccess = accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(
-                    record.getPatientId(), userId, Instant.now()
-            );
+            boolean hasAccess = accessGrantCache.hasActiveAccess(record.getPatientId(), userId);
             if (!hasAccess) {
                 throw new AccessRequiredException("You don't have access to this patient's records");
             }
@@ -170,13 +200,7 @@ public class FileUploadController {
 
         List<RecordAttachment> attachments = recordAttachmentRepository.findByRecordId(recordId);
         List<FileUploadResponse> responses = attachments.stream()
-                .map(a -> new FileUploadResponse(
-                        a.getId(),
-                        a.getFileName(),
-                        a.getBlobUrl(),
-                        a.getFileType(),
-                        a.getFileSize()
-                ))
+                .map(FileUploadResponse::from)
                 .toList();
 
         return ResponseEntity.ok(responses);
@@ -200,11 +224,7 @@ public class FileUploadController {
         RecordAttachment attachment = recordAttachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new AccessDeniedException("Attachment not found"));
 
-        // Delete from Azure
-        azureBlobService.deleteFile(attachment.getBlobUrl());
-
-        // Delete from database
-        recordAttachmentRepository.delete(attachment);
+        attachmentService.deleteAttachment(attachment);
 
         return ResponseEntity.ok().build();
     }
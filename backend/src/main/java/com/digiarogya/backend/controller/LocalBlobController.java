@@ -0,0 +1,177 @@
+package com.digiarogya.backend.controller;
+
+import com.digiarogya.backend.exception.AccessDeniedException;
+import com.digiarogya.backend.service.LocalBlobStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves and accepts blobs in the local store for holders of a signed URL.
+ * The signature is the credential, so no JWT is needed here.
+ */
+@RestController
+@RequestMapping("/api/blobs")
+@ConditionalOnProperty(name = "blob.store", havingValue = "local")
+public class LocalBlobController {
+
+    // Tomcat writes these files with sendfile(2) after the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalBlobStore localBlobStore;
+
+    public LocalBlobController(LocalBlobStore localBlobStore) {
+        this.localBlobStore = localBlobStore;
+    }
+
+    /**
+     * Download a blob, honouring a single HTTP byte range
+     */
+    @GetMapping("/{*blobName}")
+    public void download(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @PathVariable String blobName,
+            @RequestParam long expires,
+            @RequestParam String sig
+    ) throws IOException {
+        String name = blobName.startsWith("/") ? blobName.substring(1) : blobName;
+        if (!localBlobStore.verifyRead(name, expires, sig)) {
+            throw new AccessDeniedException("Invalid or expired download link");
+        }
+
+        Path path = localBlobStore.resolve(name);
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(path);
+        long start = 0;
+        long end = length - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            long[] bounds = parseRange(range.substring("bytes=".length()), length);
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            // Multi-range requests are answered with the whole blob, which RFC 9110 allows
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        long count = end - start + 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(count);
+        if (count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // Other containers: stream straight from the page cache without a heap copy of the file
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Direct upload through a signed URL. The Content-Type and Content-Length
+     * must match what was signed, and an existing blob is never replaced.
+     */
+    @PutMapping("/{*blobName}")
+    public void upload(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @PathVariable String blobName,
+            @RequestParam long expires,
+            @RequestParam long size,
+            @RequestParam String sig
+    ) throws IOException {
+        String name = blobName.startsWith("/") ? blobName.substring(1) : blobName;
+        if (!localBlobStore.verifyWrite(name, expires, request.getContentType(), size, sig)) {
+            throw new AccessDeniedException("Invalid or expired upload link");
+        }
+        if (request.getContentLengthLong() != size) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Content-Length must be " + size);
+            return;
+        }
+
+        try {
+            localBlobStore.write(name, request.getInputStream(), size, false);
+        } catch (FileAlreadyExistsException e) {
+            response.sendError(HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_CREATED);
+    }
+
+    // Returns {start, end} (inclusive), or null when the range cannot be satisfied
+    private long[] parseRange(String spec, long length) {
+        int dash = spec.indexOf('-');
+        if (dash < 0 || length == 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
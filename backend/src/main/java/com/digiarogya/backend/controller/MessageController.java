@@ -3,10 +3,13 @@ package com.digiarogya.backend.controller;
 import com.digiarogya.backend.dto.ConversationResponse;
 import com.digiarogya.backend.dto.MessageResponse;
 import com.digiarogya.backend.dto.SendMessageRequest;
+import com.digiarogya.backend.service.MessagePushService;
 import com.digiarogya.backend.service.MessageService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -16,9 +19,11 @@ import java.util.Map;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessagePushService messagePushService;
 
-    public MessageController(MessageService messageService) {
+    public MessageController(MessageService messageService, MessagePushService messagePushService) {
         this.messageService = messageService;
+        this.messagePushService = messagePushService;
     }
 
     /**
@@ -48,14 +53,19 @@ public class MessageController {
     }
 
     /**
-     * Get messages in a conversation with another user
+     * Get messages in a conversation with another user, oldest first.
+     * Returns the latest page by default; pass before (oldest id shown) to page back
+     * or after (newest id shown) to fetch only newer messages.
      */
     @GetMapping("/conversation/{otherUserId}")
     public ResponseEntity<List<MessageResponse>> getConversation(
             HttpServletRequest request,
-            @PathVariable Long otherUserId) {
+            @PathVariable Long otherUserId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + MessageService.DEFAULT_PAGE_SIZE) int limit) {
         Long currentUserId = Long.valueOf((String) request.getAttribute("userId"));
-        List<MessageResponse> messages = messageService.getConversation(currentUserId, otherUserId);
+        List<MessageResponse> messages = messageService.getConversation(currentUserId, otherUserId, before, after, limit);
         return ResponseEntity.ok(messages);
     }
 
@@ -78,4 +88,13 @@ public class MessageController {
         long count = messageService.getUnreadCount(userId);
         return ResponseEntity.ok(Map.of("unreadCount", count));
     }
+
+    /**
+     * Stream new messages and unread-count changes (server-sent events)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(HttpServletRequest request) {
+        Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        return messagePushService.subscribe(userId);
+    }
 }
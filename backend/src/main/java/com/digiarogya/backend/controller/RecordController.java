@@ -28,17 +28,27 @@ public class RecordController {
     // =========================
     // PATIENT: VIEW OWN RECORDS
     // =========================
+    // Offset paging via page/size, or keyset paging via cursor ("" for the first page,
+    // then the returned nextCursor). includeTotal=false skips the COUNT query,
+    // summary=true leaves record content out of the list, includeAttachments=true
+    // adds each record's attachment summaries (one query for the whole page).
+    // size must be at least 1 and is capped at RecordService.MAX_PAGE_SIZE.
     @GetMapping("/me")
     public PaginatedRecordResponse getMyRecords(
             HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String type
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            @RequestParam(defaultValue = "false") boolean summary,
+            @RequestParam(defaultValue = "false") boolean includeAttachments
     ) {
         Long patientId = Long.valueOf((String) request.getAttribute("userId"));
         String role = (String) request.getAttribute("role");
 
-        return recordService.getMyRecords(patientId, role, page, size, type);
+        return recordService.getMyRecords(patientId, role, page, size, type, cursor, includeTotal, summary,
+                includeAttachments);
     }
 
     // =========================
@@ -49,7 +59,11 @@ public class RecordController {
             HttpServletRequest request,
             @PathVariable Long patientId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            @RequestParam(defaultValue = "false") boolean summary,
+            @RequestParam(defaultValue = "false") boolean includeAttachments
     ) {
         Long doctorId = Long.valueOf((String) request.getAttribute("userId"));
         String role = (String) request.getAttribute("role");
@@ -59,7 +73,11 @@ public class RecordController {
                 patientId,
                 role,
                 page,
-                size
+                size,
+                cursor,
+                includeTotal,
+                summary,
+                includeAttachments
         );
     }
 
@@ -8,6 +8,7 @@ import com.digiarogya.backend.entity.User;
 import com.digiarogya.backend.service.UserService;
 import com.digiarogya.backend.dto.LoginRequest;
 import com.digiarogya.backend.security.JwtUtil;
+import com.digiarogya.backend.security.LoginThrottle;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.bind.annotation.*;
@@ -19,16 +20,19 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final LoginThrottle loginThrottle;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, LoginThrottle loginThrottle) {
         this.userService = userService;
+        this.loginThrottle = loginThrottle;
     }
 
     // =========================
     // CREATE USER (unchanged)
     // =========================
     @PostMapping
-    public UserResponse createUser(@RequestBody CreateUserRequest request) {
+    public UserResponse createUser(HttpServletRequest httpRequest, @RequestBody CreateUserRequest request) {
+        loginThrottle.acquire(request.getEmail(), httpRequest.getRemoteAddr());
 
         User user = userService.createUser(
                 request.getName(),
@@ -50,8 +54,8 @@ public class UserController {
     // =========================
 
     @PostMapping("/login")
-    public Map<String, Object> login(@RequestBody LoginRequest request) {
-
+    public Map<String, Object> login(HttpServletRequest httpRequest, @RequestBody LoginRequest request) {
+        loginThrottle.acquire(request.getEmail(), httpRequest.getRemoteAddr());
 
         User user = userService.login(
                 request.getEmail(),
@@ -104,6 +108,7 @@ public class UserController {
     @PutMapping("/me/password")
     public void changePassword(HttpServletRequest request, @RequestBody ChangePasswordRequest changePasswordRequest) {
         Long userId = Long.valueOf((String) request.getAttribute("userId"));
+        loginThrottle.acquire(null, request.getRemoteAddr());
         userService.changePassword(
                 userId,
                 changePasswordRequest.getOldPassword(),
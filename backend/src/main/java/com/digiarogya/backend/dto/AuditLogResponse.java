@@ -1,5 +1,7 @@
 package com.digiarogya.backend.dto;
 
+import com.digiarogya.backend.entity.AuditLog;
+
 import java.time.Instant;
 
 public class AuditLogResponse {
@@ -35,6 +37,22 @@ public class AuditLogResponse {
         this.createdAt = createdAt;
     }
 
+    public static AuditLogResponse from(AuditLog log) {
+        return new AuditLogResponse(
+                log.getId(),
+                log.getPatientId(),
+                log.getPatientName(),
+                log.getActorId(),
+                log.getActorName(),
+                log.getActorRole(),
+                log.getAction(),
+                log.getRecordId(),
+                log.getRecordTitle(),
+                log.getDetails(),
+                log.getCreatedAt()
+        );
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -0,0 +1,17 @@
+package com.digiarogya.backend.dto;
+
+public class ConfirmUploadRequest {
+    private String blobName;
+    private String fileName;
+    private String contentType;
+    private Long size;
+
+    public String getBlobName() { return blobName; }
+    public void setBlobName(String blobName) { this.blobName = blobName; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+}
@@ -0,0 +1,20 @@
+package com.digiarogya.backend.dto;
+
+public class CreateUploadSessionRequest {
+    private Long recordId;
+    private String fileName;
+    private String contentType;
+    private Long totalSize;
+    private Long chunkSize; // optional; the server default is used when absent
+
+    public Long getRecordId() { return recordId; }
+    public void setRecordId(Long recordId) { this.recordId = recordId; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getChunkSize() { return chunkSize; }
+    public void setChunkSize(Long chunkSize) { this.chunkSize = chunkSize; }
+}
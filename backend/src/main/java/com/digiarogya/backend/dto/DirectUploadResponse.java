@@ -0,0 +1,31 @@
+package com.digiarogya.backend.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class DirectUploadResponse {
+    private String blobName;
+    private String uploadUrl;
+    private String method;
+    private Map<String, String> headers;
+    private Instant expiresAt;
+
+    public DirectUploadResponse(String blobName, String uploadUrl, String method, Map<String, String> headers, Instant expiresAt) {
+        this.blobName = blobName;
+        this.uploadUrl = uploadUrl;
+        this.method = method;
+        this.headers = headers;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getBlobName() { return blobName; }
+    public void setBlobName(String blobName) { this.blobName = blobName; }
+    public String getUploadUrl() { return uploadUrl; }
+    public void setUploadUrl(String uploadUrl) { this.uploadUrl = uploadUrl; }
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+    public Map<String, String> getHeaders() { return headers; }
+    public void setHeaders(Map<String, String> headers) { this.headers = headers; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,11 +1,18 @@
 package com.digiarogya.backend.dto;
 
+import com.digiarogya.backend.entity.PreviewStatus;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.StoredBlob;
+
 public class FileUploadResponse {
     private Long id;
     private String fileName;
     private String fileUrl;
     private String fileType;
     private Long fileSize;
+    // Null when the attachment gets no preview; fetch READY ones via /download/{id}?variant=preview
+    private PreviewStatus previewStatus;
+    private String previewUrl;
 
     public FileUploadResponse() {}
 
@@ -17,6 +24,23 @@ public class FileUploadResponse {
         this.fileSize = fileSize;
     }
 
+    // The attachment's blob must already be loaded
+    public static FileUploadResponse from(RecordAttachment attachment) {
+        FileUploadResponse dto = new FileUploadResponse(
+                attachment.getId(),
+                attachment.getFileName(),
+                attachment.getBlobUrl(),
+                attachment.getFileType(),
+                attachment.getFileSize()
+        );
+        StoredBlob blob = attachment.getBlob();
+        if (blob != null) {
+            dto.previewStatus = blob.getPreviewStatus();
+            dto.previewUrl = blob.getPreviewUrl();
+        }
+        return dto;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getFileName() { return fileName; }
@@ -27,4 +51,8 @@ public class FileUploadResponse {
     public void setFileType(String fileType) { this.fileType = fileType; }
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    public PreviewStatus getPreviewStatus() { return previewStatus; }
+    public void setPreviewStatus(PreviewStatus previewStatus) { this.previewStatus = previewStatus; }
+    public String getPreviewUrl() { return previewUrl; }
+    public void setPreviewUrl(String previewUrl) { this.previewUrl = previewUrl; }
 }
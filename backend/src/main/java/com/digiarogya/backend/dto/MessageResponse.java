@@ -1,5 +1,7 @@
 package com.digiarogya.backend.dto;
 
+import com.digiarogya.backend.entity.Message;
+
 import java.time.Instant;
 
 public class MessageResponse {
@@ -25,6 +27,19 @@ public class MessageResponse {
         this.isRead = isRead;
     }
 
+    public static MessageResponse from(Message message, String senderName, String receiverName) {
+        return new MessageResponse(
+                message.getId(),
+                message.getSenderId(),
+                senderName,
+                message.getReceiverId(),
+                receiverName,
+                message.getContent(),
+                message.getSentAt(),
+                message.isRead()
+        );
+    }
+
     public Long getId() {
         return id;
     }
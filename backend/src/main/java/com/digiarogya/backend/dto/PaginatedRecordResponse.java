@@ -6,20 +6,36 @@ public class PaginatedRecordResponse {
 
     private List<PatientRecordResponse> records;
     private int currentPage;
-    private int totalPages;
-    private long totalElements;
+    // null when the caller skipped the count (includeTotal=false or cursor mode)
+    private Integer totalPages;
+    private Long totalElements;
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    // opaque keyset cursor for the next page; null when there is none
+    private String nextCursor;
 
     public PaginatedRecordResponse(
             List<PatientRecordResponse> records,
             int currentPage,
-            int totalPages,
-            long totalElements,
+            Integer totalPages,
+            Long totalElements,
             int pageSize,
             boolean hasNext,
             boolean hasPrevious
+    ) {
+        this(records, currentPage, totalPages, totalElements, pageSize, hasNext, hasPrevious, null);
+    }
+
+    public PaginatedRecordResponse(
+            List<PatientRecordResponse> records,
+            int currentPage,
+            Integer totalPages,
+            Long totalElements,
+            int pageSize,
+            boolean hasNext,
+            boolean hasPrevious,
+            String nextCursor
     ) {
         this.records = records;
         this.currentPage = currentPage;
@@ -28,13 +44,15 @@ public class PaginatedRecordResponse {
         this.pageSize = pageSize;
         this.hasNext = hasNext;
         this.hasPrevious = hasPrevious;
+        this.nextCursor = nextCursor;
     }
 
     public List<PatientRecordResponse> getRecords() { return records; }
     public int getCurrentPage() { return currentPage; }
-    public int getTotalPages() { return totalPages; }
-    public long getTotalElements() { return totalElements; }
+    public Integer getTotalPages() { return totalPages; }
+    public Long getTotalElements() { return totalElements; }
     public int getPageSize() { return pageSize; }
     public boolean isHasNext() { return hasNext; }
     public boolean isHasPrevious() { return hasPrevious; }
+    public String getNextCursor() { return nextCursor; }
 }
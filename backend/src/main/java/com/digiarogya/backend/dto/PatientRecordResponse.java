@@ -1,9 +1,11 @@
 package com.digiarogya.backend.dto;
 
 import com.digiarogya.backend.entity.PatientRecord;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.digiarogya.backend.entity.RecordType;
 
 import java.time.Instant;
+import java.util.List;
 
 public class PatientRecordResponse {
 
@@ -15,6 +17,30 @@ public class PatientRecordResponse {
     private Instant createdAt;
     private Long createdByDoctorId;
     private String createdByDoctorName;
+    // Only filled when the list was requested with includeAttachments
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FileUploadResponse> attachments;
+
+    private PatientRecordResponse() {}
+
+    // Used by JPQL constructor projections (doctor name joined in the same statement)
+    public PatientRecordResponse(Long id, RecordType type, String title, String content, String diagnosis,
+                                 Instant createdAt, Long createdByDoctorId, String createdByDoctorName) {
+        this.id = id;
+        this.type = type;
+        this.title = title;
+        this.content = content;
+        this.diagnosis = diagnosis;
+        this.createdAt = createdAt;
+        this.createdByDoctorId = createdByDoctorId;
+        this.createdByDoctorName = createdByDoctorName;
+    }
+
+    // List-summary projection: the TEXT content column is not selected
+    public PatientRecordResponse(Long id, RecordType type, String title, String diagnosis,
+                                 Instant createdAt, Long createdByDoctorId, String createdByDoctorName) {
+        this(id, type, title, null, diagnosis, createdAt, createdByDoctorId, createdByDoctorName);
+    }
 
     public static PatientRecordResponse from(PatientRecord record) {
         PatientRecordResponse dto = new PatientRecordResponse();
@@ -39,4 +65,6 @@ public class PatientRecordResponse {
     public Instant getCreatedAt() { return createdAt; }
     public Long getCreatedByDoctorId() { return createdByDoctorId; }
     public String getCreatedByDoctorName() { return createdByDoctorName; }
+    public List<FileUploadResponse> getAttachments() { return attachments; }
+    public void setAttachments(List<FileUploadResponse> attachments) { this.attachments = attachments; }
 }
@@ -0,0 +1,44 @@
+package com.digiarogya.backend.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class UploadSessionResponse {
+    private String uploadId;
+    private Long recordId;
+    private String fileName;
+    private Long totalSize;
+    private Long chunkSize;
+    private Integer chunkCount;
+    private List<Integer> receivedChunks;
+    private Instant expiresAt;
+
+    public UploadSessionResponse(String uploadId, Long recordId, String fileName, Long totalSize, Long chunkSize,
+                                 Integer chunkCount, List<Integer> receivedChunks, Instant expiresAt) {
+        this.uploadId = uploadId;
+        this.recordId = recordId;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        this.receivedChunks = receivedChunks;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUploadId() { return uploadId; }
+    public void setUploadId(String uploadId) { this.uploadId = uploadId; }
+    public Long getRecordId() { return recordId; }
+    public void setRecordId(Long recordId) { this.recordId = recordId; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getChunkSize() { return chunkSize; }
+    public void setChunkSize(Long chunkSize) { this.chunkSize = chunkSize; }
+    public Integer getChunkCount() { return chunkCount; }
+    public void setChunkCount(Integer chunkCount) { this.chunkCount = chunkCount; }
+    public List<Integer> getReceivedChunks() { return receivedChunks; }
+    public void setReceivedChunks(List<Integer> receivedChunks) { this.receivedChunks = receivedChunks; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,10 @@
+package com.digiarogya.backend.dto;
+
+import com.digiarogya.backend.entity.Role;
+
+/**
+ * The parts of a user other services display or check: no password hash,
+ * so it is safe to keep in memory.
+ */
+public record UserIdentity(Long id, String name, String email, Role role) {
+}
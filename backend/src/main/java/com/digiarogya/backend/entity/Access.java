@@ -8,6 +8,9 @@ import java.time.Instant;
         name = "access",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"patient_id", "doctor_id"})
+        },
+        indexes = {
+                @Index(name = "idx_access_expires_at", columnList = "expires_at")
         }
 )
 public class Access {
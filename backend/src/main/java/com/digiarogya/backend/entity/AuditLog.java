@@ -46,7 +46,9 @@ public class AuditLog {
 
     @PrePersist
     public void prePersist() {
-        createdAt = Instant.now();
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
     }
 
     // Getters and Setters
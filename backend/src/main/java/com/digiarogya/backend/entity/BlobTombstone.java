@@ -0,0 +1,64 @@
+package com.digiarogya.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A blob whose bytes are due for deletion. The row is written in the same
+ * transaction that drops the last database reference, so the intent to
+ * delete survives crashes and storage outages; a background job removes the
+ * bytes and then the row.
+ */
+@Entity
+@Table(name = "blob_tombstones", indexes = {
+        @Index(name = "idx_blob_tombstones_next_attempt", columnList = "next_attempt_at")
+})
+public class BlobTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "blob_url", nullable = false)
+    private String blobUrl;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = Instant.now();
+        if (attempts == null) {
+            attempts = 0;
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getBlobUrl() { return blobUrl; }
+    public void setBlobUrl(String blobUrl) { this.blobUrl = blobUrl; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,136 @@
+package com.digiarogya.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One row per pair of users who have exchanged messages, keyed by the
+ * canonical (lowUserId, highUserId) pair. Holds the latest message and each
+ * side's unread counter, maintained in the same transaction as the messages.
+ */
+@Entity
+@Table(
+        name = "conversations",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"low_user_id", "high_user_id"})
+        },
+        indexes = {
+                @Index(name = "idx_conversations_low_last", columnList = "low_user_id, last_message_at"),
+                @Index(name = "idx_conversations_high_last", columnList = "high_user_id, last_message_at")
+        }
+)
+public class Conversation {
+
+    public static final int PREVIEW_LENGTH = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "low_user_id", nullable = false)
+    private Long lowUserId;
+
+    @Column(name = "high_user_id", nullable = false)
+    private Long highUserId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH + 3)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at", nullable = false)
+    private Instant lastMessageAt;
+
+    // Messages the low user has not read yet
+    @Column(name = "low_unread_count", nullable = false)
+    private long lowUnreadCount;
+
+    // Messages the high user has not read yet
+    @Column(name = "high_unread_count", nullable = false)
+    private long highUnreadCount;
+
+    public static Long lowOf(Long userId1, Long userId2) {
+        return Math.min(userId1, userId2);
+    }
+
+    public static Long highOf(Long userId1, Long userId2) {
+        return Math.max(userId1, userId2);
+    }
+
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH) + "...";
+    }
+
+    public Long getOtherUserId(Long userId) {
+        return lowUserId.equals(userId) ? highUserId : lowUserId;
+    }
+
+    public long getUnreadCountFor(Long userId) {
+        return lowUserId.equals(userId) ? lowUnreadCount : highUnreadCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getLowUserId() {
+        return lowUserId;
+    }
+
+    public void setLowUserId(Long lowUserId) {
+        this.lowUserId = lowUserId;
+    }
+
+    public Long getHighUserId() {
+        return highUserId;
+    }
+
+    public void setHighUserId(Long highUserId) {
+        this.highUserId = highUserId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+
+    public void setLastMessagePreview(String lastMessagePreview) {
+        this.lastMessagePreview = lastMessagePreview;
+    }
+
+    public Instant getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(Instant lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public long getLowUnreadCount() {
+        return lowUnreadCount;
+    }
+
+    public void setLowUnreadCount(long lowUnreadCount) {
+        this.lowUnreadCount = lowUnreadCount;
+    }
+
+    public long getHighUnreadCount() {
+        return highUnreadCount;
+    }
+
+    public void setHighUnreadCount(long highUnreadCount) {
+        this.highUnreadCount = highUnreadCount;
+    }
+}
@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "messages")
+@Table(
+        name = "messages",
+        indexes = {
+                @Index(name = "idx_messages_pair_id", columnList = "low_user_id, high_user_id, id")
+        }
+)
 public class Message {
 
     @Id
@@ -17,6 +22,13 @@ public class Message {
     @Column(name = "receiver_id", nullable = false)
     private Long receiverId;
 
+    // Canonical pair (min/max of sender and receiver) so a thread is one index range
+    @Column(name = "low_user_id")
+    private Long lowUserId;
+
+    @Column(name = "high_user_id")
+    private Long highUserId;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
@@ -37,6 +49,12 @@ public class Message {
         this.isRead = false;
     }
 
+    @PrePersist
+    public void prePersist() {
+        lowUserId = Math.min(senderId, receiverId);
+        highUserId = Math.max(senderId, receiverId);
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -62,6 +80,14 @@ public class Message {
         this.receiverId = receiverId;
     }
 
+    public Long getLowUserId() {
+        return lowUserId;
+    }
+
+    public Long getHighUserId() {
+        return highUserId;
+    }
+
     public String getContent() {
         return content;
     }
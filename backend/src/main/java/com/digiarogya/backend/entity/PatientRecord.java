@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "patient_records")
+@Table(
+        name = "patient_records",
+        indexes = {
+                @Index(name = "idx_patient_records_patient_created", columnList = "patientId, createdAt, id")
+        }
+)
 public class PatientRecord {
 
     @Id
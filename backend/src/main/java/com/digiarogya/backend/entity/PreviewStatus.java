@@ -0,0 +1,11 @@
+package com.digiarogya.backend.entity;
+
+/**
+ * Progress of the downscaled preview rendered for a stored blob. Blobs that
+ * get no preview (other record types, unsupported formats) have no status.
+ */
+public enum PreviewStatus {
+    PENDING,
+    READY,
+    FAILED
+}
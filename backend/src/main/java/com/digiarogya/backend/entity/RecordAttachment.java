@@ -21,6 +21,11 @@ public class RecordAttachment {
     @Column(nullable = false)
     private String blobUrl;
 
+    // Shared, reference-counted storage; null for attachments created before deduplication
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id")
+    private StoredBlob blob;
+
     private String fileType;
 
     private Long fileSize;
@@ -40,6 +45,9 @@ public class RecordAttachment {
     public String getBlobUrl() { return blobUrl; }
     public void setBlobUrl(String blobUrl) { this.blobUrl = blobUrl; }
 
+    public StoredBlob getBlob() { return blob; }
+    public void setBlob(StoredBlob blob) { this.blob = blob; }
+
     public String getFileType() { return fileType; }
     public void setFileType(String fileType) { this.fileType = fileType; }
 
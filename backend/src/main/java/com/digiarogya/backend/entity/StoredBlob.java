@@ -0,0 +1,76 @@
+package com.digiarogya.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One physical blob in storage. Attachments with identical bytes share a
+ * row (matched by SHA-256) and refCount tracks how many attachments point
+ * at it; the bytes are deleted when the last one goes.
+ */
+@Entity
+@Table(name = "blobs")
+public class StoredBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null for blobs whose bytes never passed through the backend (direct and chunked uploads)
+    @Column(name = "sha256", length = 64, unique = true)
+    private String sha256;
+
+    @Column(name = "blob_url", nullable = false, unique = true)
+    private String blobUrl;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    // Downscaled JPEG stored next to the original, rendered in the background
+    @Column(name = "preview_url")
+    private String previewUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "preview_status", length = 16)
+    private PreviewStatus previewStatus;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getBlobUrl() { return blobUrl; }
+    public void setBlobUrl(String blobUrl) { this.blobUrl = blobUrl; }
+
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Integer getRefCount() { return refCount; }
+    public void setRefCount(Integer refCount) { this.refCount = refCount; }
+
+    public String getPreviewUrl() { return previewUrl; }
+    public void setPreviewUrl(String previewUrl) { this.previewUrl = previewUrl; }
+
+    public PreviewStatus getPreviewStatus() { return previewStatus; }
+    public void setPreviewStatus(PreviewStatus previewStatus) { this.previewStatus = previewStatus; }
+
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,45 @@
+package com.digiarogya.backend.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A chunk of an upload session that has been fully staged in the blob store
+ */
+@Entity
+@Table(
+        name = "upload_chunks",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"session_id", "chunk_index"})
+        }
+)
+public class UploadChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(nullable = false)
+    private Long size;
+
+    public UploadChunk() {}
+
+    public UploadChunk(String sessionId, Integer chunkIndex, Long size) {
+        this.sessionId = sessionId;
+        this.chunkIndex = chunkIndex;
+        this.size = size;
+    }
+
+    public Long getId() { return id; }
+
+    public String getSessionId() { return sessionId; }
+
+    public Integer getChunkIndex() { return chunkIndex; }
+
+    public Long getSize() { return size; }
+}
@@ -4,8 +4,17 @@ import com.digiarogya.backend.entity.Access;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +28,19 @@ public interface AccessRepository extends JpaRepository<Access, Long> {
 
     List<Access> findByPatientIdAndExpiresAtAfter(Long patientId, Instant now);
 
+    List<Access> findByDoctorIdAndExpiresAtAfter(Long doctorId, Instant now);
+
     Page<Access> findByDoctorIdOrderByExpiresAtDesc(Long doctorId, Pageable pageable);
+
+    // Next batch of due grants, oldest deadline first; rows locked by another instance are skipped
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<Access> findByExpiresAtLessThanEqualOrderByExpiresAtAsc(Instant cutoff, Pageable pageable);
+
+    // Earliest pending deadline, used to schedule the next expiry run
+    Optional<Access> findFirstByOrderByExpiresAtAsc();
+
+    @Modifying
+    @Query("DELETE FROM Access a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,18 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.BlobTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BlobTombstoneRepository extends JpaRepository<BlobTombstone, Long> {
+
+    List<BlobTombstone> findByNextAttemptAtLessThanEqualOrderByIdAsc(Instant now, Pageable pageable);
+
+    @Query("SELECT t.blobUrl FROM BlobTombstone t")
+    Stream<String> streamBlobUrls();
+}
@@ -0,0 +1,71 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    Optional<Conversation> findByLowUserIdAndHighUserId(Long lowUserId, Long highUserId);
+
+    // All conversations of a user, most recent first
+    @Query("SELECT c FROM Conversation c WHERE c.lowUserId = :userId OR c.highUserId = :userId ORDER BY c.lastMessageAt DESC")
+    List<Conversation> findForUser(@Param("userId") Long userId);
+
+    // Total unread messages for a user across all conversations
+    @Query("SELECT COALESCE(SUM(CASE WHEN c.lowUserId = :userId THEN c.lowUnreadCount ELSE c.highUnreadCount END), 0) " +
+            "FROM Conversation c WHERE c.lowUserId = :userId OR c.highUserId = :userId")
+    long sumUnreadForUser(@Param("userId") Long userId);
+
+    // Record a new message on an existing conversation row; returns 0 when the pair has no row yet
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageId = :messageId, c.lastMessagePreview = :preview, c.lastMessageAt = :sentAt, " +
+            "c.lowUnreadCount = c.lowUnreadCount + :lowIncrement, c.highUnreadCount = c.highUnreadCount + :highIncrement " +
+            "WHERE c.lowUserId = :lowUserId AND c.highUserId = :highUserId")
+    int recordMessage(@Param("lowUserId") Long lowUserId,
+                      @Param("highUserId") Long highUserId,
+                      @Param("messageId") Long messageId,
+                      @Param("preview") String preview,
+                      @Param("sentAt") Instant sentAt,
+                      @Param("lowIncrement") long lowIncrement,
+                      @Param("highIncrement") long highIncrement);
+
+    // Take the messages just marked read off the reader's unread counter for a pair. Subtracting
+    // (rather than resetting to 0) keeps a message sent in between counted as unread.
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+            "c.lowUnreadCount = CASE WHEN c.lowUserId = :readerId " +
+            "THEN CASE WHEN c.lowUnreadCount > :read THEN c.lowUnreadCount - :read ELSE 0 END " +
+            "ELSE c.lowUnreadCount END, " +
+            "c.highUnreadCount = CASE WHEN c.highUserId = :readerId " +
+            "THEN CASE WHEN c.highUnreadCount > :read THEN c.highUnreadCount - :read ELSE 0 END " +
+            "ELSE c.highUnreadCount END " +
+            "WHERE c.lowUserId = :lowUserId AND c.highUserId = :highUserId")
+    int markReadBy(@Param("lowUserId") Long lowUserId,
+                   @Param("highUserId") Long highUserId,
+                   @Param("readerId") Long readerId,
+                   @Param("read") long read);
+
+    // One row per pair from the messages table in a single statement (latest message and both unread counts);
+    // pairs that already have a row are left alone
+    @Modifying
+    @Query("INSERT INTO Conversation (lowUserId, highUserId, lastMessageId, lastMessagePreview, lastMessageAt, " +
+            "lowUnreadCount, highUnreadCount) " +
+            "SELECT m.lowUserId, m.highUserId, m.id, " +
+            "CASE WHEN length(m.content) <= " + Conversation.PREVIEW_LENGTH + " THEN m.content " +
+            "ELSE concat(substring(m.content, 1, " + Conversation.PREVIEW_LENGTH + "), '...') END, m.sentAt, " +
+            "(SELECT COUNT(u) FROM Message u WHERE u.lowUserId = m.lowUserId AND u.highUserId = m.highUserId " +
+            "AND u.receiverId = m.lowUserId AND u.isRead = false), " +
+            "(SELECT COUNT(u) FROM Message u WHERE u.lowUserId = m.lowUserId AND u.highUserId = m.highUserId " +
+            "AND u.receiverId = m.highUserId AND u.isRead = false) " +
+            "FROM Message m WHERE m.id = (SELECT MAX(x.id) FROM Message x " +
+            "WHERE x.lowUserId = m.lowUserId AND x.highUserId = m.highUserId) " +
+            "AND NOT EXISTS (SELECT 1 FROM Conversation c WHERE c.lowUserId = m.lowUserId AND c.highUserId = m.highUserId)")
+    int insertFromMessages();
+}
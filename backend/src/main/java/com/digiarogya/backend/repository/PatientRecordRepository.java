@@ -9,7 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface PatientRecordRepository
-        extends JpaRepository<PatientRecord, Long> {
+        extends JpaRepository<PatientRecord, Long>, PatientRecordRepositoryCustom {
 
     // fetch all records belonging to a patient
     List<PatientRecord> findByPatientId(Long patientId);
@@ -19,4 +19,8 @@ public interface PatientRecordRepository
 
     // fetch paginated records belonging to a patient filtered by type
     Page<PatientRecord> findByPatientIdAndType(Long patientId, RecordType type, Pageable pageable);
+
+    long countByPatientId(Long patientId);
+
+    long countByPatientIdAndType(Long patientId, RecordType type);
 }
@@ -0,0 +1,21 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.dto.PatientRecordResponse;
+import com.digiarogya.backend.entity.RecordType;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface PatientRecordRepositoryCustom {
+
+    /**
+     * Record list as DTO projections, newest first, with the creating doctor's
+     * name joined in the same statement.
+     * @param type optional type filter (null = all types)
+     * @param afterCreatedAt keyset cursor; when set with afterId only older rows are returned
+     * @param summary when true the TEXT content column is not selected
+     */
+    List<PatientRecordResponse> findRecordViews(Long patientId, RecordType type,
+                                                Instant afterCreatedAt, Long afterId,
+                                                boolean summary, int offset, int limit);
+}
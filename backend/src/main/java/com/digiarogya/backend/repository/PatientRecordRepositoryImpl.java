@@ -0,0 +1,57 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.dto.PatientRecordResponse;
+import com.digiarogya.backend.entity.RecordType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.Instant;
+import java.util.List;
+
+class PatientRecordRepositoryImpl implements PatientRecordRepositoryCustom {
+
+    private static final String FULL_SELECT =
+            "SELECT new com.digiarogya.backend.dto.PatientRecordResponse(" +
+            "r.id, r.type, r.title, r.content, r.diagnosis, r.createdAt, d.id, d.name) ";
+
+    private static final String SUMMARY_SELECT =
+            "SELECT new com.digiarogya.backend.dto.PatientRecordResponse(" +
+            "r.id, r.type, r.title, r.diagnosis, r.createdAt, d.id, d.name) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PatientRecordResponse> findRecordViews(Long patientId, RecordType type,
+                                                       Instant afterCreatedAt, Long afterId,
+                                                       boolean summary, int offset, int limit) {
+        boolean seek = afterCreatedAt != null && afterId != null;
+
+        StringBuilder jpql = new StringBuilder(summary ? SUMMARY_SELECT : FULL_SELECT)
+                .append("FROM PatientRecord r LEFT JOIN r.createdByDoctor d ")
+                .append("WHERE r.patientId = :patientId ");
+        if (type != null) {
+            jpql.append("AND r.type = :type ");
+        }
+        if (seek) {
+            jpql.append("AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ");
+        }
+        jpql.append("ORDER BY r.createdAt DESC, r.id DESC");
+
+        TypedQuery<PatientRecordResponse> query =
+                entityManager.createQuery(jpql.toString(), PatientRecordResponse.class)
+                        .setParameter("patientId", patientId)
+                        .setFirstResult(offset)
+                        .setMaxResults(limit);
+        if (type != null) {
+            query.setParameter("type", type);
+        }
+        if (seek) {
+            query.setParameter("createdAt", afterCreatedAt);
+            query.setParameter("id", afterId);
+        }
+
+        return query.getResultList();
+    }
+}
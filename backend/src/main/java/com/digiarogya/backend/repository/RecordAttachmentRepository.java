@@ -1,10 +1,29 @@
 package com.digiarogya.backend.repository;
 
 import com.digiarogya.backend.entity.RecordAttachment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface RecordAttachmentRepository extends JpaRepository<RecordAttachment, Long> {
-    List<RecordAttachment> findByRecordId(Long recordId);
+public interface RecordAttachmentRepository extends JpaRepository<RecordAttachment, Long>, RecordAttachmentRepositoryCustom {
+    @Query("SELECT a FROM RecordAttachment a LEFT JOIN FETCH a.blob WHERE a.record.id = :recordId ORDER BY a.id")
+    List<RecordAttachment> findByRecordId(@Param("recordId") Long recordId);
+
+    // Attachments for a whole page of records in one statement
+    @Query("SELECT a FROM RecordAttachment a LEFT JOIN FETCH a.blob WHERE a.record.id IN :recordIds ORDER BY a.id")
+    List<RecordAttachment> findByRecordIdIn(@Param("recordIds") Collection<Long> recordIds);
+
+    boolean existsByBlobUrl(String blobUrl);
+
+    // Every referenced blob, read in fetch-size chunks; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.blobUrl FROM RecordAttachment a")
+    Stream<String> streamBlobUrls();
 }
@@ -0,0 +1,14 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.RecordAttachment;
+
+import java.util.List;
+
+public interface RecordAttachmentRepositoryCustom {
+
+    /**
+     * Insert new attachments with a single JDBC batch and set their generated ids.
+     * Unlike saveAll, this is not split into one INSERT per row by IDENTITY ids.
+     */
+    void insertAll(List<RecordAttachment> attachments);
+}
@@ -0,0 +1,64 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.RecordAttachment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+class RecordAttachmentRepositoryImpl implements RecordAttachmentRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO record_attachments "
+            + "(record_id, file_name, blob_url, blob_id, file_type, file_size, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    RecordAttachmentRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<RecordAttachment> attachments) {
+        if (attachments.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        RecordAttachment attachment = attachments.get(i);
+                        if (attachment.getUploadedAt() == null) {
+                            attachment.setUploadedAt(Instant.now());
+                        }
+                        ps.setLong(1, attachment.getRecord().getId());
+                        ps.setString(2, attachment.getFileName());
+                        ps.setString(3, attachment.getBlobUrl());
+                        ps.setObject(4, attachment.getBlob() != null ? attachment.getBlob().getId() : null, Types.BIGINT);
+                        ps.setString(5, attachment.getFileType());
+                        ps.setObject(6, attachment.getFileSize(), Types.BIGINT);
+                        ps.setTimestamp(7, Timestamp.from(attachment.getUploadedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return attachments.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < attachments.size(); i++) {
+            attachments.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.PreviewStatus;
+import com.digiarogya.backend.entity.StoredBlob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    Optional<StoredBlob> findBySha256(String sha256);
+
+    // Fails (returns 0) once the blob is on its way out, so a released blob is never resurrected
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.id = :id AND b.refCount > 0")
+    int incrementRefCount(@Param("id") Long id);
+
+    // Every stored blob and its preview, read in fetch-size chunks; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.blobUrl FROM StoredBlob b")
+    Stream<String> streamBlobUrls();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.previewUrl FROM StoredBlob b WHERE b.previewUrl IS NOT NULL")
+    Stream<String> streamPreviewUrls();
+
+    // Claims the blob for preview rendering; returns 0 when it already has (or is getting) one
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.previewStatus = com.digiarogya.backend.entity.PreviewStatus.PENDING "
+            + "WHERE b.id = :id AND b.previewStatus IS NULL")
+    int markPreviewPending(@Param("id") Long id);
+
+    // Keyset page: rows leave the status while it is read, so an offset would skip some
+    List<StoredBlob> findByPreviewStatusAndIdGreaterThanOrderByIdAsc(PreviewStatus previewStatus, Long afterId,
+                                                                     Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StoredBlob b WHERE b.id = :id")
+    Optional<StoredBlob> findByIdForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,24 @@
+package com.digiarogya.backend.repository;
+
+import com.digiarogya.backend.entity.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.sessionId = :sessionId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("sessionId") String sessionId);
+
+    boolean existsBySessionIdAndChunkIndex(String sessionId, Integer chunkIndex);
+
+    @Query("SELECT COALESCE(SUM(c.size), 0) FROM UploadChunk c WHERE c.sessionId = :sessionId")
+    long sumSizes(@Param("sessionId") String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM UploadChunk c WHERE c.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -1,10 +1,27 @@
 package com.digiarogya.backend.repository;
 
+import com.digiarogya.backend.dto.UserIdentity;
 import com.digiarogya.backend.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // Row lock used to serialise rare create-if-absent paths keyed by a user
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+
+    // Identity columns only, so the password hash is never loaded for display purposes
+    @Query("SELECT new com.digiarogya.backend.dto.UserIdentity(u.id, u.name, u.email, u.role) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserIdentity> findIdentitiesByIdIn(@Param("ids") Collection<Long> ids);
 }
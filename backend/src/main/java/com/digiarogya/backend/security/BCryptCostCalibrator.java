@@ -0,0 +1,38 @@
+package com.digiarogya.backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost for this host: the highest cost between min and
+ * max whose hash still takes no longer than the target. Each step of cost
+ * doubles the work, so one timed hash at the minimum is enough to predict
+ * the rest. Existing hashes keep verifying at whatever cost they were made
+ * with, since BCrypt stores the cost in the hash.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMs, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(minCost);
+        // The first hash pays for class loading and JIT, so it is not timed
+        BCrypt.hashpw("calibration", BCrypt.gensalt(4));
+
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", salt);
+        double minCostMs = Math.max(0.001, (System.nanoTime() - start) / 1_000_000.0);
+
+        int cost = minCost;
+        while (cost < maxCost && minCostMs * (1L << (cost + 1 - minCost)) <= targetMs) {
+            cost++;
+        }
+        log.info("BCrypt cost {} selected ({} ms at cost {}, target {} ms)",
+                cost, Math.round(minCostMs), minCost, targetMs);
+        return cost;
+    }
+}
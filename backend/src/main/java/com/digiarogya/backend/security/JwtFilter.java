@@ -1,6 +1,7 @@
 package com.digiarogya.backend.security;
 
-import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,9 +9,21 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class JwtFilter extends OncePerRequestFilter {
 
+    private final TokenClaimsCache tokenClaimsCache;
+    // Registered once so the hot path only records
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public JwtFilter(TokenClaimsCache tokenClaimsCache, MeterRegistry meterRegistry) {
+        this.tokenClaimsCache = tokenClaimsCache;
+        this.validTimer = Timer.builder("auth.jwt.verify").tag("outcome", "valid").register(meterRegistry);
+        this.invalidTimer = Timer.builder("auth.jwt.verify").tag("outcome", "invalid").register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -26,6 +39,18 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
+        // signed blob download links carry their own credential
+        if (path.startsWith("/api/blobs/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // actuator is served on the management port, which is not exposed publicly
+        if (path.startsWith("/actuator/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -36,11 +61,15 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
+        long start = System.nanoTime();
         try {
-            Claims claims = JwtUtil.parseToken(token);
-            request.setAttribute("userId", claims.getSubject());
-            request.setAttribute("role", claims.get("role"));
+            TokenClaims claims = tokenClaimsCache.verify(token);
+            validTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            request.setAttribute(TokenClaims.REQUEST_ATTRIBUTE, claims);
+            request.setAttribute("userId", claims.userId());
+            request.setAttribute("role", claims.role());
         } catch (Exception e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("Invalid or expired JWT");
             return;
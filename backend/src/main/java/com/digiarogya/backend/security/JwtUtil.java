@@ -2,8 +2,8 @@ package com.digiarogya.backend.security;
 
 import com.digiarogya.backend.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
 import javax.crypto.SecretKey;
@@ -11,12 +11,18 @@ import java.util.Date;
 
 public class JwtUtil {
 
-    private static final SecretKey SECRET_KEY =
+    // Package-private so benchmarks can reproduce a parser built per call
+    static final SecretKey SECRET_KEY =
             Keys.hmacShaKeyFor(
                     "THIS_IS_A_VERY_LONG_AND_SECURE_SECRET_KEY_123456"
                             .getBytes()
             );
 
+    // Immutable and thread-safe, so one instance serves every request
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
     private static final long EXPIRATION_TIME = 1000 * 60 * 60; // 1 hour
 
     public static String generateToken(User user) {
@@ -30,10 +36,18 @@ public class JwtUtil {
     }
 
     public static Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return PARSER.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verify the signature and expiry and extract what requests need
+     */
+    public static TokenClaims verify(String token) {
+        Claims claims = parseToken(token);
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration().toInstant()
+        );
     }
 }
@@ -0,0 +1,122 @@
+package com.digiarogya.backend.security;
+
+import com.digiarogya.backend.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per email and per client IP for the endpoints that hash
+ * passwords. A bucket holds up to capacity attempts and refills at a
+ * steady rate; an empty bucket means a 429 before any hashing is done.
+ * Both maps are bounded by max-entries: full buckets carry no state worth
+ * keeping, so they are dropped first.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Map<String, Bucket> emailBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong throttled = new AtomicLong();
+
+    @Value("${auth.throttle.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${auth.throttle.email.refill-per-minute:5}")
+    private int emailRefillPerMinute;
+
+    @Value("${auth.throttle.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.throttle.ip.refill-per-minute:60}")
+    private int ipRefillPerMinute;
+
+    @Value("${auth.throttle.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Take one attempt from the IP's bucket and, when given, the email's
+     * @throws TooManyRequestsException when either bucket is empty
+     */
+    public void acquire(String email, String clientIp) {
+        long now = System.nanoTime();
+
+        long ipWait = take(ipBuckets, clientIp, ipCapacity, ipRefillPerMinute, now);
+        if (ipWait > 0) {
+            reject(ipWait);
+        }
+        if (email != null) {
+            long emailWait = take(emailBuckets, email.trim().toLowerCase(Locale.ROOT),
+                    emailCapacity, emailRefillPerMinute, now);
+            if (emailWait > 0) {
+                reject(emailWait);
+            }
+        }
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public void clear() {
+        emailBuckets.clear();
+        ipBuckets.clear();
+    }
+
+    private long take(Map<String, Bucket> buckets, String key, int capacity, int refillPerMinute, long now) {
+        if (key == null) {
+            return 0;
+        }
+        if (buckets.size() >= maxEntries && !buckets.containsKey(key)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(capacity, refillPerMinute, now));
+            if (buckets.size() >= maxEntries) {
+                buckets.clear();
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity, now))
+                .tryTake(capacity, refillPerMinute, now);
+    }
+
+    private void reject(long waitNanos) {
+        throttled.incrementAndGet();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        throw new TooManyRequestsException("Too many attempts, please try again later", seconds);
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        // 0 when a token was taken, otherwise nanoseconds until one is available
+        synchronized long tryTake(int capacity, int refillPerMinute, long now) {
+            refill(capacity, refillPerMinute, now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) ((1 - tokens) * TimeUnit.MINUTES.toNanos(1) / refillPerMinute);
+        }
+
+        synchronized boolean isFull(int capacity, int refillPerMinute, long now) {
+            refill(capacity, refillPerMinute, now);
+            return tokens >= capacity;
+        }
+
+        private void refill(int capacity, int refillPerMinute, long now) {
+            double added = (double) (now - updatedAt) * refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+            tokens = Math.min(capacity, tokens + added);
+            updatedAt = now;
+        }
+    }
+}
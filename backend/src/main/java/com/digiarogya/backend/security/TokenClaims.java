@@ -0,0 +1,13 @@
+package com.digiarogya.backend.security;
+
+import java.time.Instant;
+
+/**
+ * The verified claims of a bearer token. JwtFilter stores them on the
+ * request under {@link #REQUEST_ATTRIBUTE}, so nothing downstream needs to
+ * parse the token again.
+ */
+public record TokenClaims(String userId, String role, Instant expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = "claims";
+}
@@ -0,0 +1,87 @@
+package com.digiarogya.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of verified token claims keyed by the SHA-256 of the
+ * token, so a client sending the same bearer token on every request pays
+ * for signature verification and JSON parsing once. An entry is only
+ * served until the token's own expiry; invalid tokens are never cached.
+ */
+@Component
+public class TokenClaimsCache {
+
+    private final Map<String, TokenClaims> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${auth.token-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Claims of a valid, unexpired token
+     * @throws io.jsonwebtoken.JwtException when the token is invalid or expired
+     */
+    public TokenClaims verify(String token) {
+        Instant now = Instant.now();
+        String key = digest(token);
+
+        TokenClaims claims = entries.get(key);
+        if (claims != null) {
+            if (claims.expiresAt().isAfter(now)) {
+                hits.incrementAndGet();
+                return claims;
+            }
+            entries.remove(key, claims);
+        }
+
+        misses.incrementAndGet();
+        claims = JwtUtil.verify(token);
+
+        if (entries.size() >= maxEntries) {
+            // Expired tokens can never be served again; only start over if that frees nothing
+            entries.values().removeIf(c -> !c.expiresAt().isAfter(now));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, claims);
+        return claims;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    // The digest keeps raw bearer tokens out of the heap's long-lived structures
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
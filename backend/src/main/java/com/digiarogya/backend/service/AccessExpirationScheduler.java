@@ -1,74 +1,175 @@
 package com.digiarogya.backend.service;
 
+import com.digiarogya.backend.dto.UserIdentity;
 import com.digiarogya.backend.entity.Access;
-import com.digiarogya.backend.entity.User;
+import com.digiarogya.backend.entity.AuditLog;
 import com.digiarogya.backend.repository.AccessRepository;
-import com.digiarogya.backend.repository.UserRepository;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
+/**
+ * Deadline-driven access expiry. Each run expires only the grants that are
+ * already due (indexed expires_at range query, in batches), then schedules
+ * itself for the next pending deadline instead of polling on a fixed hour.
+ */
 @Service
 public class AccessExpirationScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(AccessExpirationScheduler.class);
+
     private final AccessRepository accessRepository;
-    private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
     private final AuditLogService auditLogService;
+    private final AccessGrantCache accessGrantCache;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${access.expiry.batch-size:500}")
+    private int batchSize;
+
+    // Upper bound between runs so new grants are always picked up
+    @Value("${access.expiry.max-interval-ms:3600000}")
+    private long maxIntervalMs;
+
+    // Lower bound between runs so rows held by another instance don't cause a busy loop
+    @Value("${access.expiry.min-interval-ms:1000}")
+    private long minIntervalMs;
+
+    private ScheduledFuture<?> nextRun;
 
     public AccessExpirationScheduler(
             AccessRepository accessRepository,
-            UserRepository userRepository,
-            AuditLogService auditLogService
+            UserIdentityCache userIdentityCache,
+            AuditLogService auditLogService,
+            AccessGrantCache accessGrantCache,
+            TaskScheduler taskScheduler,
+            PlatformTransactionManager transactionManager
     ) {
         this.accessRepository = accessRepository;
-        this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
         this.auditLogService = auditLogService;
+        this.accessGrantCache = accessGrantCache;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        schedule(Instant.now());
     }
 
-    // Run every hour to check for expired access
-    @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
     public void checkExpiredAccess() {
-        Instant now = Instant.now();
-        List<Access> allAccess = accessRepository.findAll();
-
-        for (Access access : allAccess) {
-            if (access.getExpiresAt().isBefore(now)) {
-                // Log the expiration
-                User patient = userRepository.findById(access.getPatientId()).orElse(null);
-                User doctor = userRepository.findById(access.getDoctorId()).orElse(null);
-
-                if (patient != null && doctor != null) {
-                    auditLogService.logAudit(
-                        access.getPatientId(),
-                        patient.getName(),
-                        access.getPatientId(),
-                        patient.getName(),
-                        "SYSTEM",
-                        "ACCESS_EXPIRED",
-                        null,
-                        null,
-                        "Access to Dr. " + doctor.getName() + " expired automatically"
-                    );
-
-                    // Also log for doctor
-                    auditLogService.logAudit(
-                        access.getPatientId(),
-                        patient.getName(),
-                        access.getDoctorId(),
-                        doctor.getName(),
-                        "SYSTEM",
-                        "ACCESS_EXPIRED",
-                        null,
-                        null,
-                        "Access to " + patient.getName() + "'s records expired automatically"
-                    );
-                }
-
-                // Delete the expired access
-                accessRepository.delete(access);
+        try {
+            Instant now = Instant.now();
+            int expired;
+            do {
+                expired = transactionTemplate.execute(status -> expireBatch(now));
+            } while (expired == batchSize);
+        } catch (Exception e) {
+            logger.error("Access expiry run failed", e);
+        } finally {
+            scheduleNextRun();
+        }
+    }
+
+    private int expireBatch(Instant now) {
+        List<Access> due = accessRepository.findByExpiresAtLessThanEqualOrderByExpiresAtAsc(
+                now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // Resolve every patient and doctor in the batch with at most one IN query
+        Set<Long> userIds = new HashSet<>();
+        for (Access access : due) {
+            userIds.add(access.getPatientId());
+            userIds.add(access.getDoctorId());
+        }
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(userIds);
+
+        List<AuditLog> logs = new ArrayList<>();
+        for (Access access : due) {
+            UserIdentity patient = users.get(access.getPatientId());
+            UserIdentity doctor = users.get(access.getDoctorId());
+
+            if (patient != null && doctor != null) {
+                logs.add(auditLogService.buildAuditLog(
+                    access.getPatientId(),
+                    patient.name(),
+                    access.getPatientId(),
+                    patient.name(),
+                    "SYSTEM",
+                    "ACCESS_EXPIRED",
+                    null,
+                    null,
+                    "Access to Dr. " + doctor.name() + " expired automatically",
+                    null
+                ));
+
+                // Also log for doctor
+                logs.add(auditLogService.buildAuditLog(
+                    access.getPatientId(),
+                    patient.name(),
+                    access.getDoctorId(),
+                    doctor.name(),
+                    "SYSTEM",
+                    "ACCESS_EXPIRED",
+                    null,
+                    null,
+                    "Access to " + patient.name() + "'s records expired automatically",
+                    null
+                ));
             }
         }
+
+        accessRepository.deleteAllByIdIn(due.stream().map(Access::getId).toList());
+        auditLogService.logAudits(logs);
+
+        for (Access access : due) {
+            accessGrantCache.evict(access.getPatientId(), access.getDoctorId());
+        }
+
+        return due.size();
+    }
+
+    private void scheduleNextRun() {
+        Instant now = Instant.now();
+        Instant latest = now.plusMillis(maxIntervalMs);
+        Instant next = latest;
+
+        try {
+            next = accessRepository.findFirstByOrderByExpiresAtAsc()
+                    .map(Access::getExpiresAt)
+                    .filter(deadline -> deadline.isBefore(latest))
+                    .orElse(latest);
+        } catch (Exception e) {
+            logger.error("Could not look up next access deadline", e);
+        }
+
+        Instant earliest = now.plusMillis(minIntervalMs);
+        schedule(next.isBefore(earliest) ? earliest : next);
+    }
+
+    private synchronized void schedule(Instant at) {
+        if (nextRun != null) {
+            nextRun.cancel(false);
+        }
+        nextRun = taskScheduler.schedule(this::checkExpiredAccess, at);
     }
 }
@@ -0,0 +1,104 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.Access;
+import com.digiarogya.backend.repository.AccessRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of access decisions keyed by (patientId, doctorId).
+ * Holds the grant's expiresAt (or "no grant") so repeated permission checks
+ * are answered without a database round trip. Every write to the access table
+ * must call {@link #evict(Long, Long)} so a revoked grant is never served.
+ */
+@Component
+public class AccessGrantCache {
+
+    private record Key(Long patientId, Long doctorId) {}
+
+    private record Entry(Instant expiresAt, Instant loadedAt) {}
+
+    private final AccessRepository accessRepository;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a load racing with a revoke never re-caches the old grant
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${access.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${access.cache.max-entries:10000}")
+    private int maxEntries;
+
+    public AccessGrantCache(AccessRepository accessRepository) {
+        this.accessRepository = accessRepository;
+    }
+
+    /**
+     * Check whether the doctor currently holds an unexpired grant for the patient
+     */
+    public boolean hasActiveAccess(Long patientId, Long doctorId) {
+        Instant now = Instant.now();
+        Key key = new Key(patientId, doctorId);
+
+        Entry entry = entries.get(key);
+        if (entry == null || entry.loadedAt().plus(Duration.ofSeconds(ttlSeconds)).isBefore(now)) {
+            entry = load(key, now);
+        }
+
+        return entry.expiresAt() != null && entry.expiresAt().isAfter(now);
+    }
+
+    /**
+     * Drop the cached decision for a pair. When called inside a transaction the
+     * entry is dropped again after commit, so readers cannot re-cache uncommitted state.
+     */
+    public void evict(Long patientId, Long doctorId) {
+        Key key = new Key(patientId, doctorId);
+        evictions.incrementAndGet();
+        entries.remove(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictions.incrementAndGet();
+                    entries.remove(key);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        evictions.incrementAndGet();
+        entries.clear();
+    }
+
+    private Entry load(Key key, Instant now) {
+        long generation = evictions.get();
+
+        Instant expiresAt = accessRepository.findByPatientIdAndDoctorId(key.patientId(), key.doctorId())
+                .map(Access::getExpiresAt)
+                .orElse(null);
+        Entry entry = new Entry(expiresAt, now);
+
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(key, entry);
+
+        // An eviction ran while we were reading; the value may predate it
+        if (evictions.get() != generation) {
+            entries.remove(key, entry);
+        }
+
+        return entry;
+    }
+}
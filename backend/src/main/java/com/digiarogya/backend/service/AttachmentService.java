@@ -0,0 +1,186 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.StoredBlob;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Attachment upload pipeline. Files of one request are sent to the blob
+ * store concurrently on virtual threads; a global permit count bounds how
+ * many transfers run at once across all requests. Attachment rows are
+ * inserted together only after every file is stored, and if anything fails
+ * the blobs already written are released again. Files whose SHA-256 matches
+ * a stored blob are not transferred at all; the attachment references the
+ * existing blob.
+ */
+@Service
+public class AttachmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentService.class);
+
+    private final BlobStore blobStore;
+    private final RecordAttachmentRepository recordAttachmentRepository;
+    private final BlobReferenceService blobReferenceService;
+    private final DownloadUrlCache downloadUrlCache;
+    private final BlobDeletionService blobDeletionService;
+    private final PreviewService previewService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore uploadPermits;
+
+    public AttachmentService(
+            BlobStore blobStore,
+            RecordAttachmentRepository recordAttachmentRepository,
+            BlobReferenceService blobReferenceService,
+            DownloadUrlCache downloadUrlCache,
+            BlobDeletionService blobDeletionService,
+            PreviewService previewService,
+            PlatformTransactionManager transactionManager,
+            @Value("${files.upload.max-concurrency:8}") int maxConcurrency
+    ) {
+        this.blobStore = blobStore;
+        this.recordAttachmentRepository = recordAttachmentRepository;
+        this.blobReferenceService = blobReferenceService;
+        this.downloadUrlCache = downloadUrlCache;
+        this.blobDeletionService = blobDeletionService;
+        this.previewService = previewService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadPermits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Store all files for a record; either every attachment is created or none is
+     */
+    public List<RecordAttachment> uploadFiles(PatientRecord record, MultipartFile[] files) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<StoredBlob>> uploads = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            uploads.add(uploadExecutor.submit(() -> upload(file, failed)));
+        }
+
+        List<StoredBlob> blobs = new ArrayList<>(files.length);
+        Throwable failure = null;
+        for (Future<StoredBlob> upload : uploads) {
+            try {
+                StoredBlob blob = upload.get();
+                if (blob != null) {
+                    blobs.add(blob);
+                }
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                failure = failure != null ? failure : e;
+            }
+        }
+
+        if (failure != null) {
+            compensate(blobs);
+            throw failure instanceof IOException io ? io : new IOException(failure.getMessage(), failure);
+        }
+
+        List<RecordAttachment> attachments = new ArrayList<>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            RecordAttachment attachment = new RecordAttachment();
+            attachment.setRecord(record);
+            attachment.setFileName(files[i].getOriginalFilename());
+            attachment.setBlob(blobs.get(i));
+            attachment.setBlobUrl(blobs.get(i).getBlobUrl());
+            attachment.setFileType(files[i].getContentType());
+            attachment.setFileSize(files[i].getSize());
+            attachments.add(attachment);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                recordAttachmentRepository.insertAll(attachments);
+                for (RecordAttachment attachment : attachments) {
+                    previewService.requestPreview(attachment.getBlob(), record.getType());
+                }
+            });
+        } catch (RuntimeException e) {
+            compensate(blobs);
+            throw e;
+        }
+        return attachments;
+    }
+
+    /**
+     * Delete an attachment and drop its reference on the stored bytes
+     */
+    public void deleteAttachment(RecordAttachment attachment) {
+        transactionTemplate.executeWithoutResult(status -> {
+            recordAttachmentRepository.delete(attachment);
+            recordAttachmentRepository.flush();
+            downloadUrlCache.evict(attachment.getId());
+            if (attachment.getBlob() != null) {
+                blobReferenceService.release(attachment.getBlob().getId());
+            } else {
+                // Attachments from before deduplication own their blob outright
+                blobDeletionService.schedule(attachment.getBlobUrl());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
+    private StoredBlob upload(MultipartFile file, AtomicBoolean failed) throws Exception {
+        uploadPermits.acquire();
+        try {
+            // Another file of this request already failed; don't start a transfer that will be undone
+            if (failed.get()) {
+                return null;
+            }
+
+            // Identical bytes are already stored: reference them and skip the transfer
+            String sha256 = BlobReferenceService.sha256(file);
+            Optional<StoredBlob> existing = blobReferenceService.acquire(sha256);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+
+            String blobUrl = blobStore.uploadFile(file, BlobStore.newContentBlobName(sha256, file.getOriginalFilename()));
+            return blobReferenceService.register(blobUrl, sha256, file.getSize(), file.getContentType());
+        } catch (Exception e) {
+            failed.set(true);
+            throw e;
+        } finally {
+            uploadPermits.release();
+        }
+    }
+
+    // Best effort: a reference we fail to drop here leaves the blob for cleanup rather than failing the request twice
+    private void compensate(List<StoredBlob> blobs) {
+        for (StoredBlob blob : blobs) {
+            try {
+                blobReferenceService.release(blob.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to release blob {} after a failed upload", blob.getBlobUrl(), e);
+            }
+        }
+    }
+}
@@ -5,21 +5,28 @@ import com.digiarogya.backend.dto.PaginatedAuditLogResponse;
 import com.digiarogya.backend.entity.AuditLog;
 import com.digiarogya.backend.exception.AccessDeniedException;
 import com.digiarogya.backend.repository.AuditLogRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("app.service")
 public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public AuditLogService(AuditLogRepository auditLogRepository) {
+    public AuditLogService(AuditLogRepository auditLogRepository, AuditLogWriter auditLogWriter) {
         this.auditLogRepository = auditLogRepository;
+        this.auditLogWriter = auditLogWriter;
     }
 
     // Log an audit event
@@ -30,6 +37,20 @@ public class AuditLogService {
 
     public void logAudit(Long patientId, String patientName, Long actorId, String actorName, String actorRole, 
                         String action, Long recordId, String recordTitle, String details, Long targetDoctorId) {
+        AuditLog log = buildAuditLog(patientId, patientName, actorId, actorName, actorRole,
+                action, recordId, recordTitle, details, targetDoctorId);
+        afterCommit(() -> auditLogWriter.enqueue(log));
+    }
+
+    // Log several audit events at once (used by bulk jobs such as access expiry)
+    public void logAudits(List<AuditLog> logs) {
+        if (!logs.isEmpty()) {
+            afterCommit(() -> auditLogWriter.enqueueAll(logs));
+        }
+    }
+
+    public AuditLog buildAuditLog(Long patientId, String patientName, Long actorId, String actorName, String actorRole,
+                                  String action, Long recordId, String recordTitle, String details, Long targetDoctorId) {
         AuditLog log = new AuditLog();
         log.setPatientId(patientId);
         log.setPatientName(patientName);
@@ -41,8 +62,22 @@ public class AuditLogService {
         log.setRecordTitle(recordTitle);
         log.setDetails(details);
         log.setTargetDoctorId(targetDoctorId);
-        
-        auditLogRepository.save(log);
+        log.setCreatedAt(Instant.now());
+        return log;
+    }
+
+    // Audit rows are written asynchronously, so only queue events whose action actually committed
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     // Get audit logs for a patient or doctor
@@ -61,7 +96,7 @@ public class AuditLogService {
         }
 
         List<AuditLogResponse> logs = logPage.getContent().stream()
-                .map(this::mapToResponse)
+                .map(AuditLogResponse::from)
                 .collect(Collectors.toList());
 
         return new PaginatedAuditLogResponse(
@@ -74,20 +109,4 @@ public class AuditLogService {
                 logPage.hasPrevious()
         );
     }
-
-    private AuditLogResponse mapToResponse(AuditLog log) {
-        return new AuditLogResponse(
-                log.getId(),
-                log.getPatientId(),
-                log.getPatientName(),
-                log.getActorId(),
-                log.getActorName(),
-                log.getActorRole(),
-                log.getAction(),
-                log.getRecordId(),
-                log.getRecordTitle(),
-                log.getDetails(),
-                log.getCreatedAt()
-        );
-    }
 }
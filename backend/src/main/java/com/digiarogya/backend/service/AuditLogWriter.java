@@ -0,0 +1,325 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes audit events off the request path. Events go into a bounded queue
+ * and a single background thread inserts them with JDBC batches, flushing
+ * when a batch fills up or the flush interval passes.
+ *
+ * When the queue is full the caller either blocks until there is room
+ * (overflow=BLOCK) or the event is appended to a local spill file
+ * (overflow=SPILL). Spilled events, and batches that failed to insert,
+ * are replayed into the database once the writer is idle again.
+ */
+@Component
+public class AuditLogWriter {
+
+    public enum Overflow { BLOCK, SPILL }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO audit_log (patient_id, patient_name, actor_id, actor_name, "
+            + "actor_role, action, record_id, record_title, details, target_doctor_id, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Own mapper so the spill format does not follow web JSON settings
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final BlockingQueue<AuditLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownTimeoutMs;
+    private final Overflow overflow;
+    private final Path spillFile;
+    // A lock rather than a monitor: request threads spill too, and a virtual thread doing file I/O
+    // inside synchronized would pin its carrier
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          @Value("${audit.writer.queue-capacity:10000}") int queueCapacity,
+                          @Value("${audit.writer.batch-size:200}") int batchSize,
+                          @Value("${audit.writer.flush-interval-ms:1000}") long flushIntervalMs,
+                          @Value("${audit.writer.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                          @Value("${audit.writer.overflow:SPILL}") Overflow overflow,
+                          @Value("${audit.writer.spill-file:${java.io.tmpdir}/digiarogya-audit-spill.jsonl}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.overflow = overflow;
+        this.spillFile = Path.of(spillFile);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::run, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue an event for writing. Never touches the database on the caller's thread.
+     */
+    public void enqueue(AuditLog auditLog) {
+        if (auditLog.getCreatedAt() == null) {
+            auditLog.setCreatedAt(Instant.now());
+        }
+        if (!running) {
+            // Shutting down; the writer may already be gone, so keep the event on disk
+            spill(List.of(auditLog));
+            return;
+        }
+        if (queue.offer(auditLog)) {
+            return;
+        }
+        if (overflow == Overflow.BLOCK) {
+            try {
+                queue.put(auditLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                spill(List.of(auditLog));
+            }
+        } else {
+            spill(List.of(auditLog));
+        }
+    }
+
+    public void enqueueAll(List<AuditLog> auditLogs) {
+        auditLogs.forEach(this::enqueue);
+    }
+
+    /**
+     * Stop accepting work and drain what is queued before the datasource goes away.
+     */
+    @PreDestroy
+    public void shutdown() {
+        // Not interrupted: an interrupt can abort a batch mid-insert. The writer
+        // notices the flag within one flush interval and drains the queue.
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the writer could not get to in time survives in the spill file
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("Audit writer did not drain in time; spilling {} events", remaining.size());
+            spill(remaining);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getLastFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get());
+    }
+
+    public long getMaxFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get());
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpill();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    AuditLog next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} audit events; spilling them for replay", batch.size(), e);
+            spill(batch);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            batch.clear();
+        }
+    }
+
+    private void insert(List<AuditLog> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, auditLog) -> {
+            ps.setLong(1, auditLog.getPatientId());
+            ps.setString(2, auditLog.getPatientName());
+            ps.setLong(3, auditLog.getActorId());
+            ps.setString(4, auditLog.getActorName());
+            ps.setString(5, auditLog.getActorRole());
+            ps.setString(6, auditLog.getAction());
+            ps.setObject(7, auditLog.getRecordId(), Types.BIGINT);
+            ps.setString(8, auditLog.getRecordTitle());
+            ps.setString(9, auditLog.getDetails());
+            ps.setObject(10, auditLog.getTargetDoctorId(), Types.BIGINT);
+            ps.setTimestamp(11, Timestamp.from(auditLog.getCreatedAt()));
+        });
+    }
+
+    // Append-only, one JSON document per line
+    private void spill(List<AuditLog> auditLogs) {
+        spillLock.lock();
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditLog auditLog : auditLogs) {
+                writer.write(objectMapper.writeValueAsString(auditLog));
+                writer.newLine();
+            }
+            spilled.addAndGet(auditLogs.size());
+        } catch (IOException e) {
+            log.error("Failed to spill {} audit events to {}", auditLogs.size(), spillFile, e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void replaySpill() {
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        try {
+            spillLock.lock();
+            try {
+                // A previous replay may have been cut short; finish it before taking new spills
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+
+            replayFile(replaying);
+            Files.delete(replaying);
+            log.info("Replayed spilled audit events from {}", spillFile);
+        } catch (IOException | RuntimeException e) {
+            // Leave the file in place and try again on the next idle cycle
+            log.warn("Could not replay spilled audit events from {}: {}", replaying, e.getMessage());
+        }
+    }
+
+    private void replayFile(Path replaying) throws IOException {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long committedLines = 0;
+        long readLines = 0;
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    readLines++;
+                    if (!line.isBlank()) {
+                        batch.add(objectMapper.readValue(line, AuditLog.class));
+                    }
+                    if (batch.size() == batchSize) {
+                        insert(batch);
+                        written.addAndGet(batch.size());
+                        batch.clear();
+                        committedLines = readLines;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                insert(batch);
+                written.addAndGet(batch.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            if (committedLines > 0) {
+                // Drop the lines already written so the retry does not duplicate them
+                List<String> rest;
+                try (var lines = Files.lines(replaying, StandardCharsets.UTF_8)) {
+                    rest = lines.skip(committedLines).toList();
+                }
+                Files.write(replaying, rest, StandardCharsets.UTF_8);
+            }
+            throw e;
+        }
+    }
+}
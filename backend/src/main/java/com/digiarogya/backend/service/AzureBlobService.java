@@ -1,23 +1,44 @@
 package com.digiarogya.backend.service;
 
+import com.azure.core.http.HttpClient;
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.azure.core.util.HttpClientOptions;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
 import com.azure.storage.blob.sas.BlobSasPermission;
 import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
-import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
-public class AzureBlobService {
+@Timed("app.service")
+@ConditionalOnProperty(name = "blob.store", havingValue = "azure", matchIfMissing = true)
+public class AzureBlobService implements BlobStore {
+
+    private static final int LIST_PAGE_SIZE = 1000;
 
     @Value("${azure.storage.connection-string}")
     private String connectionString;
@@ -25,12 +46,19 @@ public class AzureBlobService {
     @Value("${azure.storage.container-name}")
     private String containerName;
 
+    // Calls block the caller until Azure answers, so this caps concurrent blob I/O across all threads
+    @Value("${azure.storage.max-connections:500}")
+    private int maxConnections;
+
     private BlobContainerClient containerClient;
 
     @PostConstruct
     public void init() {
+        HttpClient httpClient = HttpClient.createDefault(
+                new HttpClientOptions().setMaximumConnectionPoolSize(maxConnections));
         BlobServiceClient blobServiceClient = new BlobServiceClientBuilder()
                 .connectionString(connectionString)
+                .httpClient(httpClient)
                 .buildClient();
         containerClient = blobServiceClient.getBlobContainerClient(containerName);
         
@@ -41,43 +69,33 @@ public class AzureBlobService {
     }
 
     /**
-     * Upload a file to Azure Blob Storage
-     * @param file The file to upload
-     * @param patientId The patient ID (used for organizing files)
-     * @param recordId The record ID
-     * @return The blob URL
+     * Upload bytes to Azure Blob Storage with their headers in one request (overwrites by default)
      */
-    public String uploadFile(MultipartFile file, Long patientId, Long recordId) throws IOException {
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-                : "";
-        String blobName = String.format("patient-%d/record-%d/%s%s", 
-                patientId, recordId, UUID.randomUUID().toString(), extension);
-
+    @Override
+    public String upload(String blobName, InputStream data, long length, String contentType) {
         BlobClient blobClient = containerClient.getBlobClient(blobName);
-
-        // Set content type
-        BlobHttpHeaders headers = new BlobHttpHeaders()
-                .setContentType(file.getContentType());
-
-        // Upload file
-        blobClient.upload(file.getInputStream(), file.getSize(), true);
-        blobClient.setHttpHeaders(headers);
-
+        blobClient.uploadWithResponse(
+                new BlobParallelUploadOptions(BinaryData.fromStream(data, length)).setHeaders(new BlobHttpHeaders().setContentType(contentType)),
+                null,
+                Context.NONE);
         return blobClient.getBlobUrl();
     }
 
+    @Override
+    public InputStream openStream(String blobUrl) {
+        return containerClient.getBlobClient(blobName(blobUrl)).openInputStream();
+    }
+
     /**
      * Generate a SAS URL for secure file download
      * @param blobUrl The blob URL
      * @param expiryMinutes How long the URL should be valid
      * @return Signed URL for download
      */
+    @Override
     public String generateDownloadUrl(String blobUrl, int expiryMinutes) {
         // Extract blob name from URL
-        String blobName = extractBlobName(blobUrl);
+        String blobName = blobName(blobUrl);
         BlobClient blobClient = containerClient.getBlobClient(blobName);
 
         // Generate SAS token
@@ -94,15 +112,100 @@ public class AzureBlobService {
      * Delete a file from Azure Blob Storage
      * @param blobUrl The blob URL to delete
      */
+    @Override
     public void deleteFile(String blobUrl) {
-        String blobName = extractBlobName(blobUrl);
+        // One request; a blob that is already gone is not an error
+        containerClient.getBlobClient(blobName(blobUrl)).deleteIfExists();
+    }
+
+    /**
+     * Stage a chunk as an uncommitted block of a block blob
+     */
+    @Override
+    public void stageChunk(String blobName, int index, long offset, InputStream data, long length) {
+        containerClient.getBlobClient(blobName).getBlockBlobClient()
+                .stageBlock(blockId(index), data, length);
+    }
+
+    /**
+     * Commit the staged blocks in order, setting the content type in the same request
+     */
+    @Override
+    public String commitChunks(String blobName, int chunkCount, String contentType) {
+        List<String> blockIds = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            blockIds.add(blockId(i));
+        }
+        BlockBlobClient blockBlobClient = containerClient.getBlobClient(blobName).getBlockBlobClient();
+        blockBlobClient.commitBlockListWithResponse(
+                new BlockBlobCommitBlockListOptions(blockIds)
+                        .setHeaders(new BlobHttpHeaders().setContentType(contentType)),
+                null,
+                Context.NONE);
+        return blockBlobClient.getBlobUrl();
+    }
+
+    /**
+     * Uncommitted blocks are discarded by Azure after seven days, so there is nothing to delete
+     */
+    @Override
+    public void abortChunks(String blobName) {
+    }
+
+    /**
+     * SAS scoped to the one blob with create permission only, so it cannot
+     * read anything or overwrite the blob once it exists
+     */
+    @Override
+    public SignedUpload generateUploadUrl(String blobName, String contentType, long size, int expiryMinutes) {
         BlobClient blobClient = containerClient.getBlobClient(blobName);
-        if (blobClient.exists()) {
-            blobClient.delete();
+
+        BlobSasPermission permission = new BlobSasPermission().setCreatePermission(true);
+        OffsetDateTime expiryTime = OffsetDateTime.now().plusMinutes(expiryMinutes);
+        String sasToken = blobClient.generateSas(new BlobServiceSasSignatureValues(expiryTime, permission));
+
+        return new SignedUpload(
+                blobClient.getBlobUrl() + "?" + sasToken,
+                Map.of("x-ms-blob-type", "BlockBlob", "Content-Type", contentType)
+        );
+    }
+
+    @Override
+    public BlobInfo describe(String blobName) {
+        try {
+            BlobProperties properties = containerClient.getBlobClient(blobName).getProperties();
+            return new BlobInfo(properties.getBlobSize(), properties.getContentType());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
         }
     }
 
-    private String extractBlobName(String blobUrl) {
+    @Override
+    public String blobUrl(String blobName) {
+        return containerClient.getBlobClient(blobName).getBlobUrl();
+    }
+
+    /**
+     * Flat listing; the iterable fetches the next page with its continuation token as it is consumed
+     */
+    @Override
+    public void listBlobs(String prefix, Consumer<ListedBlob> consumer) {
+        ListBlobsOptions options = new ListBlobsOptions().setPrefix(prefix).setMaxResultsPerPage(LIST_PAGE_SIZE);
+        for (BlobItem item : containerClient.listBlobs(options, null)) {
+            consumer.accept(new ListedBlob(blobUrl(item.getName()), item.getProperties().getLastModified().toInstant()));
+        }
+    }
+
+    // Block ids must all have the same length within a blob
+    private String blockId(int index) {
+        return Base64.getEncoder().encodeToString(String.format("%08d", index).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public String blobName(String blobUrl) {
         // Extract blob name from full URL
         // URL format: https://<account>.blob.core.windows.net/<container>/<blob-name>
         String containerPath = containerName + "/";
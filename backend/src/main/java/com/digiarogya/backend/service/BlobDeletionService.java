@@ -0,0 +1,171 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.BlobTombstone;
+import com.digiarogya.backend.repository.BlobTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes blob bytes off the request path. Callers write a tombstone in the
+ * same transaction that removes the last database reference; a scheduled
+ * job deletes the bytes in batches and retries failures with exponential
+ * backoff, so a storage outage delays deletion instead of leaking blobs.
+ * Deletes are idempotent, so two instances working the same rows is harmless.
+ * Each batch is deleted concurrently on virtual threads, up to the
+ * configured concurrency, so a slow storage round trip is not paid once per
+ * blob.
+ */
+@Service
+public class BlobDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobDeletionService.class);
+
+    private final BlobTombstoneRepository blobTombstoneRepository;
+    private final BlobStore blobStore;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final AtomicLong deletedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final ExecutorService deleteExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore deletePermits;
+
+    public BlobDeletionService(
+            BlobTombstoneRepository blobTombstoneRepository,
+            BlobStore blobStore,
+            @Value("${blob.deletion.batch-size:100}") int batchSize,
+            @Value("${blob.deletion.initial-backoff-ms:10000}") long initialBackoffMs,
+            @Value("${blob.deletion.max-backoff-ms:3600000}") long maxBackoffMs,
+            @Value("${blob.deletion.concurrency:8}") int concurrency
+    ) {
+        this.blobTombstoneRepository = blobTombstoneRepository;
+        this.blobStore = blobStore;
+        this.batchSize = batchSize;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.deletePermits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Queue a blob for deletion; joins the caller's transaction when there is one
+     */
+    public void schedule(String blobUrl) {
+        scheduleAll(List.of(blobUrl));
+    }
+
+    public void scheduleAll(Collection<String> blobUrls) {
+        List<BlobTombstone> tombstones = new ArrayList<>(blobUrls.size());
+        for (String blobUrl : blobUrls) {
+            BlobTombstone tombstone = new BlobTombstone();
+            tombstone.setBlobUrl(blobUrl);
+            tombstones.add(tombstone);
+        }
+        blobTombstoneRepository.saveAll(tombstones);
+    }
+
+    /**
+     * Work through every tombstone that is due
+     * @return number of blobs deleted
+     */
+    @Scheduled(fixedDelayString = "${blob.deletion.interval-ms:5000}")
+    public int processPending() {
+        int deleted = 0;
+        List<BlobTombstone> due;
+        do {
+            Instant now = Instant.now();
+            due = blobTombstoneRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(now, PageRequest.of(0, batchSize));
+
+            List<Future<?>> deletes = new ArrayList<>(due.size());
+            for (BlobTombstone tombstone : due) {
+                deletes.add(deleteExecutor.submit(() -> delete(tombstone.getBlobUrl())));
+            }
+
+            List<Long> done = new ArrayList<>(due.size());
+            List<BlobTombstone> failed = new ArrayList<>();
+            for (int i = 0; i < due.size(); i++) {
+                BlobTombstone tombstone = due.get(i);
+                try {
+                    deletes.get(i).get();
+                    done.add(tombstone.getId());
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                            ? runtime : new IllegalStateException(e.getCause());
+                    retryLater(tombstone, cause, now);
+                    failed.add(tombstone);
+                } catch (InterruptedException e) {
+                    // Shutting down; whatever is left stays due and is picked up by the next run
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            blobTombstoneRepository.deleteAllByIdInBatch(done);
+            blobTombstoneRepository.saveAll(failed);
+            deleted += done.size();
+            deletedCount.addAndGet(done.size());
+            failedCount.addAndGet(failed.size());
+
+            // Everything left in this batch was pushed into the future; stop until the next run
+            if (done.isEmpty()) {
+                break;
+            }
+        } while (due.size() == batchSize);
+        return deleted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deleteExecutor.shutdown();
+    }
+
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+
+    /** Failed delete attempts, each of which was rescheduled */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    private Void delete(String blobUrl) throws InterruptedException {
+        deletePermits.acquire();
+        try {
+            blobStore.deleteFile(blobUrl);
+            return null;
+        } finally {
+            deletePermits.release();
+        }
+    }
+
+    private void retryLater(BlobTombstone tombstone, RuntimeException e, Instant now) {
+        int attempts = tombstone.getAttempts() + 1;
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+
+        tombstone.setAttempts(attempts);
+        tombstone.setNextAttemptAt(now.plus(backoff));
+        String message = String.valueOf(e.getMessage());
+        tombstone.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        log.warn("Failed to delete blob {} (attempt {}), retrying in {}s",
+                tombstone.getBlobUrl(), attempts, backoff.toSeconds(), e);
+    }
+}
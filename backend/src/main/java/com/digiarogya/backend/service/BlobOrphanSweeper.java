@@ -0,0 +1,159 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.repository.BlobTombstoneRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Finds blobs in storage that no database row refers to (left behind by
+ * crashes between an upload and its insert, or by deletes from before
+ * tombstones existed) and queues them for deletion. Blobs younger than
+ * min-age are skipped: they may belong to an upload whose row is about to
+ * be written.
+ *
+ * Reconciliation is by blob name, not URL: stored URLs keep whatever
+ * endpoint was configured when they were written (another host, a custom
+ * domain, http), so every referenced URL is reduced to its name before the
+ * listing is compared against it. The names are loaded once per sweep; the
+ * listing itself is still read a page at a time.
+ *
+ * With dry-run on (the default) orphans are only logged, so a new
+ * deployment can be checked before anything is deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "blob.gc.enabled", havingValue = "true", matchIfMissing = true)
+public class BlobOrphanSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobOrphanSweeper.class);
+
+    private final BlobStore blobStore;
+    private final RecordAttachmentRepository recordAttachmentRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final BlobTombstoneRepository blobTombstoneRepository;
+    private final BlobDeletionService blobDeletionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${blob.gc.prefixes:patient-,sha256/}")
+    private List<String> prefixes;
+
+    @Value("${blob.gc.page-size:500}")
+    private int pageSize;
+
+    @Value("${blob.gc.min-age-hours:48}")
+    private long minAgeHours;
+
+    @Value("${blob.gc.dry-run:true}")
+    private boolean dryRun;
+
+    public BlobOrphanSweeper(
+            BlobStore blobStore,
+            RecordAttachmentRepository recordAttachmentRepository,
+            StoredBlobRepository storedBlobRepository,
+            BlobTombstoneRepository blobTombstoneRepository,
+            BlobDeletionService blobDeletionService,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.blobStore = blobStore;
+        this.recordAttachmentRepository = recordAttachmentRepository;
+        this.storedBlobRepository = storedBlobRepository;
+        this.blobTombstoneRepository = blobTombstoneRepository;
+        this.blobDeletionService = blobDeletionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * List every configured prefix and tombstone the blobs nothing refers to
+     * @return number of orphans queued for deletion (found, in dry-run mode)
+     */
+    @Scheduled(initialDelayString = "${blob.gc.initial-delay-ms:600000}",
+            fixedDelayString = "${blob.gc.interval-ms:86400000}")
+    public int sweep() {
+        // Read before listing: a row written after this is for a blob younger than the cutoff
+        Instant cutoff = Instant.now().minus(Duration.ofHours(minAgeHours));
+        Set<String> referenced;
+        try {
+            referenced = referencedBlobNames();
+        } catch (RuntimeException e) {
+            log.warn("Orphan sweep skipped: could not read referenced blobs", e);
+            return 0;
+        }
+
+        int orphans = 0;
+        for (String prefix : prefixes) {
+            try {
+                orphans += sweep(prefix, cutoff, referenced);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Orphan sweep of prefix {} stopped early", prefix, e);
+            }
+        }
+        if (orphans > 0) {
+            log.info(dryRun ? "Dry run: found {} orphaned blobs, none queued" : "Queued {} orphaned blobs for deletion",
+                    orphans);
+        }
+        return orphans;
+    }
+
+    private int sweep(String prefix, Instant cutoff, Set<String> referenced) throws IOException {
+        List<String> page = new ArrayList<>(pageSize);
+        int[] orphans = new int[1];
+        blobStore.listBlobs(prefix, blob -> {
+            if (blob.lastModified().isAfter(cutoff) || referenced.contains(blobStore.blobName(blob.blobUrl()))) {
+                return;
+            }
+            page.add(blob.blobUrl());
+            if (page.size() == pageSize) {
+                orphans[0] += queue(page);
+                page.clear();
+            }
+        });
+        if (!page.isEmpty()) {
+            orphans[0] += queue(page);
+        }
+        return orphans[0];
+    }
+
+    private int queue(List<String> orphans) {
+        if (dryRun) {
+            log.info("Dry run: would queue {} orphaned blobs, starting with {}", orphans.size(), orphans.get(0));
+        } else {
+            blobDeletionService.scheduleAll(orphans);
+        }
+        return orphans.size();
+    }
+
+    // Names of every blob a row refers to, including those already queued for deletion
+    private Set<String> referencedBlobNames() {
+        return transactionTemplate.execute(status -> {
+            Set<String> names = new HashSet<>();
+            addNames(names, recordAttachmentRepository.streamBlobUrls());
+            addNames(names, storedBlobRepository.streamBlobUrls());
+            addNames(names, storedBlobRepository.streamPreviewUrls());
+            addNames(names, blobTombstoneRepository.streamBlobUrls());
+            return names;
+        });
+    }
+
+    private void addNames(Set<String> names, Stream<String> blobUrls) {
+        try (blobUrls) {
+            blobUrls.forEach(blobUrl -> names.add(blobStore.blobName(blobUrl)));
+        }
+    }
+}
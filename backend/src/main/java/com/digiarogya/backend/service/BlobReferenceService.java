@@ -0,0 +1,111 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.StoredBlob;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Reference counting for stored blobs. Attachments take a reference when
+ * they are created and drop it when they are deleted; the bytes are queued
+ * for deletion once no attachment refers to them.
+ */
+@Service
+public class BlobReferenceService {
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final BlobDeletionService blobDeletionService;
+    private final TransactionTemplate transactionTemplate;
+
+    public BlobReferenceService(StoredBlobRepository storedBlobRepository, BlobDeletionService blobDeletionService,
+                                PlatformTransactionManager transactionManager) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.blobDeletionService = blobDeletionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * SHA-256 of the file, computed in one streaming pass over the local copy
+     */
+    public static String sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Take a reference on an existing blob with these bytes
+     * @return empty when no such blob exists (or it is being deleted)
+     */
+    public Optional<StoredBlob> acquire(String sha256) {
+        return transactionTemplate.execute(status -> storedBlobRepository.findBySha256(sha256)
+                .filter(blob -> storedBlobRepository.incrementRefCount(blob.getId()) == 1));
+    }
+
+    /**
+     * Record a blob that was just written, holding one reference. When a
+     * concurrent upload of the same bytes registered first, that blob is
+     * referenced instead and the duplicate copy is deleted.
+     */
+    public StoredBlob register(String blobUrl, String sha256, long size, String contentType) {
+        StoredBlob blob = new StoredBlob();
+        blob.setBlobUrl(blobUrl);
+        blob.setSha256(sha256);
+        blob.setSize(size);
+        blob.setContentType(contentType);
+        blob.setRefCount(1);
+
+        if (sha256 == null) {
+            return storedBlobRepository.save(blob);
+        }
+        try {
+            return transactionTemplate.execute(status -> storedBlobRepository.saveAndFlush(blob));
+        } catch (DataIntegrityViolationException e) {
+            Optional<StoredBlob> winner = acquire(sha256);
+            if (winner.isEmpty()) {
+                // The other copy was released in the meantime; ours becomes the shared one
+                return register(blobUrl, sha256, size, contentType);
+            }
+            blobDeletionService.schedule(blobUrl);
+            return winner.get();
+        }
+    }
+
+    /**
+     * Drop one reference. The last one deletes the row and tombstones the
+     * bytes in the same transaction.
+     */
+    public void release(Long blobId) {
+        transactionTemplate.executeWithoutResult(status ->
+                storedBlobRepository.findByIdForUpdate(blobId).ifPresent(blob -> {
+                    if (blob.getRefCount() > 1) {
+                        blob.setRefCount(blob.getRefCount() - 1);
+                        return;
+                    }
+                    storedBlobRepository.delete(blob);
+                    blobDeletionService.schedule(blob.getBlobUrl());
+                    if (blob.getPreviewUrl() != null) {
+                        blobDeletionService.schedule(blob.getPreviewUrl());
+                    }
+                }));
+    }
+}
@@ -0,0 +1,141 @@
+package com.digiarogya.backend.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage for attachment bytes. The value returned by uploadFile is what
+ * gets stored on RecordAttachment and passed back to the other methods.
+ * Pick the implementation with blob.store=azure (default) or blob.store=local.
+ */
+public interface BlobStore {
+
+    /**
+     * Store a file under the patient/record prefix
+     * @return The blob URL to persist on the attachment
+     */
+    default String uploadFile(MultipartFile file, Long patientId, Long recordId) throws IOException {
+        return uploadFile(file, newBlobName(file.getOriginalFilename(), patientId, recordId));
+    }
+
+    /**
+     * Store a file under the given blob name, setting its content type in the same request
+     * @return The blob URL to persist on the attachment
+     */
+    default String uploadFile(MultipartFile file, String blobName) throws IOException {
+        try (InputStream data = file.getInputStream()) {
+            return upload(blobName, data, file.getSize(), file.getContentType());
+        }
+    }
+
+    /**
+     * Store exactly length bytes under the given blob name, replacing any existing blob
+     * @return The blob URL to persist
+     */
+    String upload(String blobName, InputStream data, long length, String contentType) throws IOException;
+
+    /**
+     * Stream a blob's bytes; the caller closes the stream
+     */
+    InputStream openStream(String blobUrl) throws IOException;
+
+    /**
+     * Generate a short-lived signed URL the client can download from directly
+     */
+    String generateDownloadUrl(String blobUrl, int expiryMinutes);
+
+    /**
+     * Delete a blob; deleting one that no longer exists is not an error
+     */
+    void deleteFile(String blobUrl);
+
+    /**
+     * Stream one chunk of a chunked upload into staging. Re-staging the same
+     * index replaces it, so a client can resend a chunk after a failure.
+     * @param offset byte position of the chunk in the final blob
+     */
+    void stageChunk(String blobName, int index, long offset, InputStream data, long length) throws IOException;
+
+    /**
+     * Assemble chunks 0..chunkCount-1 into the final blob
+     * @return The blob URL to persist on the attachment
+     */
+    String commitChunks(String blobName, int chunkCount, String contentType) throws IOException;
+
+    /**
+     * Discard staged chunks of an upload that will not be committed
+     */
+    void abortChunks(String blobName);
+
+    /**
+     * Generate a short-lived URL that allows a single PUT of this one blob and nothing else
+     * @param size expected length; stores that can enforce it at write time do so
+     */
+    SignedUpload generateUploadUrl(String blobName, String contentType, long size, int expiryMinutes);
+
+    /**
+     * Size and content type of a stored blob, or null when it does not exist
+     */
+    BlobInfo describe(String blobName);
+
+    /**
+     * The value persisted on RecordAttachment for a blob name
+     */
+    String blobUrl(String blobName);
+
+    /**
+     * The blob name behind a persisted blob URL; the inverse of blobUrl
+     */
+    String blobName(String blobUrl);
+
+    /**
+     * Visit every blob whose name starts with prefix. The listing is read a
+     * page at a time, so a large container never has to fit in memory.
+     */
+    void listBlobs(String prefix, Consumer<ListedBlob> consumer) throws IOException;
+
+    /**
+     * @param headers request headers the client must send with the PUT
+     */
+    record SignedUpload(String url, Map<String, String> headers) {}
+
+    /**
+     * @param contentType null when the store does not keep one
+     */
+    record BlobInfo(long size, String contentType) {}
+
+    /**
+     * @param blobUrl the value persisted on RecordAttachment for this blob
+     */
+    record ListedBlob(String blobUrl, Instant lastModified) {}
+
+    /**
+     * Blob names look like patient-{id}/record-{id}/{uuid}{extension}
+     */
+    static String newBlobName(String originalFilename, Long patientId, Long recordId) {
+        return String.format("patient-%d/record-%d/%s%s",
+                patientId, recordId, UUID.randomUUID().toString(), extensionOf(originalFilename));
+    }
+
+    /**
+     * Deduplicated blobs are shared across patients, so their names carry the
+     * content hash instead of a patient/record prefix:
+     * sha256/{hash}/{uuid}{extension}. The uuid keeps every physical copy
+     * distinct, so deleting one can never race a re-upload of the same bytes.
+     */
+    static String newContentBlobName(String sha256, String originalFilename) {
+        return String.format("sha256/%s/%s%s", sha256, UUID.randomUUID().toString(), extensionOf(originalFilename));
+    }
+
+    private static String extensionOf(String originalFilename) {
+        return originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : "";
+    }
+}
@@ -0,0 +1,278 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.CreateUploadSessionRequest;
+import com.digiarogya.backend.dto.FileUploadResponse;
+import com.digiarogya.backend.dto.UploadSessionResponse;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.UploadChunk;
+import com.digiarogya.backend.entity.UploadSession;
+import com.digiarogya.backend.exception.AccessDeniedException;
+import com.digiarogya.backend.exception.AccessRequiredException;
+import com.digiarogya.backend.exception.ValidationException;
+import com.digiarogya.backend.repository.PatientRecordRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import com.digiarogya.backend.repository.UploadChunkRepository;
+import com.digiarogya.backend.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable uploads for files too large for a single multipart request.
+ * A client opens a session, PUTs chunks in any order (re-sending any that
+ * failed), then commits. Each chunk streams from the request body straight
+ * into blob staging, so heap use does not grow with the file size. The
+ * RecordAttachment is only created by the commit.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadChunkRepository uploadChunkRepository;
+    private final PatientRecordRepository patientRecordRepository;
+    private final RecordAttachmentRepository recordAttachmentRepository;
+    private final AccessGrantCache accessGrantCache;
+    private final BlobStore blobStore;
+    private final BlobReferenceService blobReferenceService;
+    private final BlobDeletionService blobDeletionService;
+    private final PreviewService previewService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${files.chunked.default-chunk-size:8388608}")
+    private long defaultChunkSize;
+
+    @Value("${files.chunked.min-chunk-size:1048576}")
+    private long minChunkSize;
+
+    @Value("${files.chunked.max-chunk-size:104857600}")
+    private long maxChunkSize;
+
+    @Value("${files.chunked.max-file-size:5368709120}")
+    private long maxFileSize;
+
+    @Value("${files.chunked.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    public ChunkedUploadService(
+            UploadSessionRepository uploadSessionRepository,
+            UploadChunkRepository uploadChunkRepository,
+            PatientRecordRepository patientRecordRepository,
+            RecordAttachmentRepository recordAttachmentRepository,
+            AccessGrantCache accessGrantCache,
+            BlobStore blobStore,
+            BlobReferenceService blobReferenceService,
+            BlobDeletionService blobDeletionService,
+            PreviewService previewService,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadChunkRepository = uploadChunkRepository;
+        this.patientRecordRepository = patientRecordRepository;
+        this.recordAttachmentRepository = recordAttachmentRepository;
+        this.accessGrantCache = accessGrantCache;
+        this.blobStore = blobStore;
+        this.blobReferenceService = blobReferenceService;
+        this.blobDeletionService = blobDeletionService;
+        this.previewService = previewService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public UploadSessionResponse createSession(Long doctorId, String role, CreateUploadSessionRequest request) {
+        if (!"DOCTOR".equals(role)) {
+            throw new AccessDeniedException("Only doctors can upload files");
+        }
+        if (request.getRecordId() == null || request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new ValidationException("recordId and fileName are required");
+        }
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0 || request.getTotalSize() > maxFileSize) {
+            throw new ValidationException("totalSize must be between 1 and " + maxFileSize + " bytes");
+        }
+
+        PatientRecord record = patientRecordRepository.findById(request.getRecordId())
+                .orElseThrow(() -> new AccessDeniedException("Record not found"));
+        if (!accessGrantCache.hasActiveAccess(record.getPatientId(), doctorId)) {
+            throw new AccessRequiredException("You don't have access to this patient's records");
+        }
+
+        long chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setRecordId(record.getId());
+        session.setPatientId(record.getPatientId());
+        session.setDoctorId(doctorId);
+        session.setFileName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setTotalSize(request.getTotalSize());
+        session.setChunkSize(chunkSize);
+        session.setBlobName(BlobStore.newBlobName(request.getFileName(), record.getPatientId(), record.getId()));
+        session.setExpiresAt(Instant.now().plus(sessionTtlHours, ChronoUnit.HOURS));
+        uploadSessionRepository.save(session);
+
+        return toResponse(session, List.of());
+    }
+
+    /**
+     * Current state of a session; clients use receivedChunks to resume
+     */
+    public UploadSessionResponse getSession(String uploadId, Long doctorId) {
+        UploadSession session = loadSession(uploadId, doctorId);
+        return toResponse(session, uploadChunkRepository.findChunkIndexes(uploadId));
+    }
+
+    /**
+     * Stream one chunk from the request body into blob staging
+     * @param contentLength the request's Content-Length; must match the chunk's expected size
+     */
+    public UploadSessionResponse putChunk(String uploadId, Long doctorId, int index, long contentLength,
+                                          InputStream data) throws IOException {
+        UploadSession session = loadSession(uploadId, doctorId);
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new ValidationException("Chunk index must be between 0 and " + (session.getChunkCount() - 1));
+        }
+        long expected = session.getChunkLength(index);
+        if (contentLength != expected) {
+            throw new ValidationException("Chunk " + index + " must be exactly " + expected + " bytes");
+        }
+
+        blobStore.stageChunk(session.getBlobName(), index, index * session.getChunkSize(), data, expected);
+
+        // Only recorded once fully staged; a resent chunk replaces the staged bytes and keeps its row
+        if (!uploadChunkRepository.existsBySessionIdAndChunkIndex(uploadId, index)) {
+            try {
+                uploadChunkRepository.save(new UploadChunk(uploadId, index, expected));
+            } catch (DataIntegrityViolationException e) {
+                // The same chunk was recorded concurrently
+            }
+        }
+        return toResponse(session, uploadChunkRepository.findChunkIndexes(uploadId));
+    }
+
+    /**
+     * Assemble the staged chunks and create the attachment
+     */
+    public FileUploadResponse commit(String uploadId, Long doctorId) {
+        UploadSession unlocked = loadSession(uploadId, doctorId);
+        if (!accessGrantCache.hasActiveAccess(unlocked.getPatientId(), doctorId)) {
+            throw new AccessRequiredException("You don't have access to this patient's records");
+        }
+
+        String[] committedUrl = new String[1];
+        try {
+            return transactionTemplate.execute(status -> {
+                UploadSession session = uploadSessionRepository.findByIdForUpdate(uploadId)
+                        .orElseThrow(() -> new AccessDeniedException("Upload session not found"));
+
+                List<Integer> received = uploadChunkRepository.findChunkIndexes(uploadId);
+                if (received.size() != session.getChunkCount()
+                        || uploadChunkRepository.sumSizes(uploadId) != session.getTotalSize()) {
+                    throw new ValidationException("Upload is incomplete: received "
+                            + received.size() + " of " + session.getChunkCount() + " chunks");
+                }
+
+                String blobUrl;
+                try {
+                    blobUrl = blobStore.commitChunks(session.getBlobName(), session.getChunkCount(), session.getContentType());
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to commit upload: " + e.getMessage());
+                }
+                committedUrl[0] = blobUrl;
+
+                PatientRecord record = patientRecordRepository.getReferenceById(session.getRecordId());
+                RecordAttachment attachment = new RecordAttachment();
+                attachment.setRecord(record);
+                attachment.setFileName(session.getFileName());
+                // The server never sees these bytes as a whole, so they are stored without a content hash
+                attachment.setBlob(blobReferenceService.register(
+                        blobUrl, null, session.getTotalSize(), session.getContentType()));
+                attachment.setBlobUrl(blobUrl);
+                attachment.setFileType(session.getContentType());
+                attachment.setFileSize(session.getTotalSize());
+                attachment = recordAttachmentRepository.save(attachment);
+                previewService.requestPreview(attachment.getBlob(), record.getType());
+
+                uploadChunkRepository.deleteBySessionId(uploadId);
+                uploadSessionRepository.delete(session);
+
+                return FileUploadResponse.from(attachment);
+            });
+        } catch (RuntimeException e) {
+            // The blob was assembled but the attachment row was not written
+            if (committedUrl[0] != null) {
+                blobDeletionService.schedule(committedUrl[0]);
+            }
+            throw e;
+        }
+    }
+
+    public void abort(String uploadId, Long doctorId) {
+        discard(loadSession(uploadId, doctorId));
+    }
+
+    // Sessions that were never committed or aborted
+    @Scheduled(fixedDelayString = "${files.chunked.cleanup-interval-ms:3600000}")
+    public void purgeExpiredSessions() {
+        List<UploadSession> expired;
+        do {
+            expired = uploadSessionRepository.findByExpiresAtLessThanEqual(Instant.now(), PageRequest.of(0, 100));
+            for (UploadSession session : expired) {
+                try {
+                    discard(session);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to purge upload session {}", session.getId(), e);
+                    return;
+                }
+            }
+        } while (!expired.isEmpty());
+    }
+
+    private void discard(UploadSession session) {
+        blobStore.abortChunks(session.getBlobName());
+        transactionTemplate.executeWithoutResult(status -> {
+            uploadChunkRepository.deleteBySessionId(session.getId());
+            uploadSessionRepository.deleteById(session.getId());
+        });
+    }
+
+    private UploadSession loadSession(String uploadId, Long doctorId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new AccessDeniedException("Upload session not found"));
+        if (!session.getDoctorId().equals(doctorId)) {
+            throw new AccessDeniedException("Upload session not found");
+        }
+        if (session.getExpiresAt().isBefore(Instant.now())) {
+            throw new ValidationException("Upload session has expired");
+        }
+        return session;
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session, List<Integer> receivedChunks) {
+        return new UploadSessionResponse(
+                session.getId(),
+                session.getRecordId(),
+                session.getFileName(),
+                session.getTotalSize(),
+                session.getChunkSize(),
+                session.getChunkCount(),
+                receivedChunks,
+                session.getExpiresAt()
+        );
+    }
+}
@@ -0,0 +1,148 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.ConfirmUploadRequest;
+import com.digiarogya.backend.dto.DirectUploadRequest;
+import com.digiarogya.backend.dto.DirectUploadResponse;
+import com.digiarogya.backend.dto.FileUploadResponse;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.exception.AccessDeniedException;
+import com.digiarogya.backend.exception.AccessRequiredException;
+import com.digiarogya.backend.exception.ValidationException;
+import com.digiarogya.backend.repository.PatientRecordRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Uploads that bypass the backend: the client gets a write-only URL for a
+ * single blob, PUTs the bytes straight to storage, then confirms. Only the
+ * metadata passes through this JVM.
+ */
+@Service
+public class DirectUploadService {
+
+    // patient-{id}/record-{id}/{uuid}{extension}, as produced by BlobStore.newBlobName
+    private static final Pattern BLOB_FILE =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.[A-Za-z0-9]{1,16})?");
+
+    private final PatientRecordRepository patientRecordRepository;
+    private final RecordAttachmentRepository recordAttachmentRepository;
+    private final AccessGrantCache accessGrantCache;
+    private final BlobStore blobStore;
+    private final BlobReferenceService blobReferenceService;
+    private final PreviewService previewService;
+
+    @Value("${files.direct.url-expiry-minutes:15}")
+    private int urlExpiryMinutes;
+
+    @Value("${files.direct.max-file-size:5368709120}")
+    private long maxFileSize;
+
+    public DirectUploadService(
+            PatientRecordRepository patientRecordRepository,
+            RecordAttachmentRepository recordAttachmentRepository,
+            AccessGrantCache accessGrantCache,
+            BlobStore blobStore,
+            BlobReferenceService blobReferenceService,
+            PreviewService previewService
+    ) {
+        this.patientRecordRepository = patientRecordRepository;
+        this.recordAttachmentRepository = recordAttachmentRepository;
+        this.accessGrantCache = accessGrantCache;
+        this.blobStore = blobStore;
+        this.blobReferenceService = blobReferenceService;
+        this.previewService = previewService;
+    }
+
+    /**
+     * Issue a short-lived URL that can only create one new blob under the record's prefix
+     */
+    public DirectUploadResponse issueUploadUrl(Long doctorId, String role, Long recordId, DirectUploadRequest request) {
+        PatientRecord record = loadRecordForDoctor(doctorId, role, recordId);
+        validate(request.getFileName(), request.getContentType(), request.getSize());
+
+        String blobName = BlobStore.newBlobName(request.getFileName(), record.getPatientId(), record.getId());
+        BlobStore.SignedUpload upload = blobStore.generateUploadUrl(
+                blobName, request.getContentType(), request.getSize(), urlExpiryMinutes);
+
+        return new DirectUploadResponse(
+                blobName,
+                upload.url(),
+                "PUT",
+                upload.headers(),
+                Instant.now().plus(urlExpiryMinutes, ChronoUnit.MINUTES)
+        );
+    }
+
+    /**
+     * Check the uploaded blob against what the client declared, then create the attachment
+     */
+    @Transactional
+    public FileUploadResponse confirmUpload(Long doctorId, String role, Long recordId, ConfirmUploadRequest request) {
+        PatientRecord record = loadRecordForDoctor(doctorId, role, recordId);
+        validate(request.getFileName(), request.getContentType(), request.getSize());
+
+        String blobName = request.getBlobName();
+        String prefix = "patient-" + record.getPatientId() + "/record-" + record.getId() + "/";
+        if (blobName == null || !blobName.startsWith(prefix)
+                || !BLOB_FILE.matcher(blobName.substring(prefix.length())).matches()) {
+            throw new ValidationException("Blob does not belong to this record");
+        }
+
+        String blobUrl = blobStore.blobUrl(blobName);
+        if (recordAttachmentRepository.existsByBlobUrl(blobUrl)) {
+            throw new ValidationException("Upload was already confirmed");
+        }
+
+        BlobStore.BlobInfo info = blobStore.describe(blobName);
+        if (info == null) {
+            throw new ValidationException("Uploaded file not found");
+        }
+        if (info.size() != request.getSize()
+                || (info.contentType() != null && !info.contentType().equals(request.getContentType()))) {
+            // The bytes don't match what was declared; don't leave them in storage
+            blobStore.deleteFile(blobUrl);
+            throw new ValidationException("Uploaded file does not match the declared size or content type");
+        }
+
+        RecordAttachment attachment = new RecordAttachment();
+        attachment.setRecord(record);
+        attachment.setFileName(request.getFileName());
+        // The bytes went straight to storage, so there is no content hash to deduplicate on
+        attachment.setBlob(blobReferenceService.register(blobUrl, null, info.size(), request.getContentType()));
+        attachment.setBlobUrl(blobUrl);
+        attachment.setFileType(request.getContentType());
+        attachment.setFileSize(info.size());
+        attachment = recordAttachmentRepository.save(attachment);
+        previewService.requestPreview(attachment.getBlob(), record.getType());
+
+        return FileUploadResponse.from(attachment);
+    }
+
+    private PatientRecord loadRecordForDoctor(Long doctorId, String role, Long recordId) {
+        if (!"DOCTOR".equals(role)) {
+            throw new AccessDeniedException("Only doctors can upload files");
+        }
+        PatientRecord record = patientRecordRepository.findById(recordId)
+                .orElseThrow(() -> new AccessDeniedException("Record not found"));
+        if (!accessGrantCache.hasActiveAccess(record.getPatientId(), doctorId)) {
+            throw new AccessRequiredException("You don't have access to this patient's records");
+        }
+        return record;
+    }
+
+    private void validate(String fileName, String contentType, Long size) {
+        if (fileName == null || fileName.isBlank() || contentType == null || contentType.isBlank()) {
+            throw new ValidationException("fileName and contentType are required");
+        }
+        if (size == null || size <= 0 || size > maxFileSize) {
+            throw new ValidationException("size must be between 1 and " + maxFileSize + " bytes");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.digiarogya.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of signed download URLs keyed by (attachmentId, permission, variant).
+ * A URL is handed out again until it comes within the refresh margin of its
+ * expiry, so a client always gets at least that long to use it. Deleting an
+ * attachment must call {@link #evict(Long)}.
+ */
+@Component
+public class DownloadUrlCache {
+
+    /** Read-only access, the only permission download links are issued with */
+    public static final String READ = "r";
+
+    /** The uploaded file itself */
+    public static final String ORIGINAL = "original";
+    /** The downscaled JPEG rendered by PreviewService */
+    public static final String PREVIEW = "preview";
+
+    private record Key(Long attachmentId, String permission, String variant) {}
+
+    private record Entry(String url, Instant expiresAt) {}
+
+    private final BlobStore blobStore;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a signing racing with a delete never re-caches the old URL
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${files.download.url-expiry-minutes:30}")
+    private int expiryMinutes;
+
+    @Value("${files.download.url-refresh-minutes:5}")
+    private int refreshMinutes;
+
+    @Value("${files.download.url-cache.max-entries:10000}")
+    private int maxEntries;
+
+    public DownloadUrlCache(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Signed read URL for an attachment's blob, reusing a cached one while it has time left
+     */
+    public String getDownloadUrl(Long attachmentId, String blobUrl) {
+        return getDownloadUrl(attachmentId, ORIGINAL, blobUrl);
+    }
+
+    /**
+     * @param blobUrl the blob behind the variant, e.g. the preview URL for PREVIEW
+     */
+    public String getDownloadUrl(Long attachmentId, String variant, String blobUrl) {
+        Instant now = Instant.now();
+        Key key = new Key(attachmentId, READ, variant);
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt().minus(Duration.ofMinutes(refreshMinutes)).isAfter(now)) {
+            hits.incrementAndGet();
+            return entry.url();
+        }
+
+        misses.incrementAndGet();
+        return sign(key, blobUrl, now).url();
+    }
+
+    /**
+     * Drop every cached URL for an attachment. When called inside a transaction
+     * the entries are dropped again after commit.
+     */
+    public void evict(Long attachmentId) {
+        removeAll(attachmentId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeAll(attachmentId);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        evictions.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private Entry sign(Key key, String blobUrl, Instant now) {
+        long generation = evictions.get();
+
+        String url = blobStore.generateDownloadUrl(blobUrl, expiryMinutes);
+        Entry entry = new Entry(url, now.plus(Duration.ofMinutes(expiryMinutes)));
+
+        if (entries.size() >= maxEntries) {
+            // Expired links are useless anyway; only start over if that frees nothing
+            entries.values().removeIf(e -> !e.expiresAt().isAfter(now));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, entry);
+
+        // An eviction ran while we were signing; the attachment may be gone
+        if (evictions.get() != generation) {
+            entries.remove(key, entry);
+        }
+
+        return entry;
+    }
+
+    private void removeAll(Long attachmentId) {
+        evictions.incrementAndGet();
+        entries.keySet().removeIf(key -> key.attachmentId().equals(attachmentId));
+    }
+}
@@ -0,0 +1,309 @@
+package com.digiarogya.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Filesystem blob store for on-prem deployments, local development and
+ * tests. Blobs live under blob.local.root-dir using the same
+ * patient/record layout as Azure. Downloads go through LocalBlobController
+ * with an HMAC-signed, expiring URL, the local stand-in for a SAS token.
+ */
+@Service
+@ConditionalOnProperty(name = "blob.store", havingValue = "local")
+public class LocalBlobStore implements BlobStore {
+
+    public static final String URL_PREFIX = "local:";
+    public static final String DOWNLOAD_PATH = "/api/blobs/";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String STAGING_DIR = ".staging";
+
+    @Value("${blob.local.root-dir:data/blobs}")
+    private String rootDir;
+
+    // Leave empty to generate a key at startup (signed URLs then stop working after a restart)
+    @Value("${blob.local.signing-key:}")
+    private String signingKey;
+
+    // Where clients reach this server; signed URLs are built on it, never on a request's Host header,
+    // since they are cached and handed to other clients and are also made off request threads
+    @Value("${blob.local.public-base-url:}")
+    private String publicBaseUrl;
+
+    private Path root;
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (publicBaseUrl == null || !publicBaseUrl.matches("https?://.+")) {
+            throw new IllegalStateException(
+                    "blob.local.public-base-url must be an absolute http(s) URL, was '" + publicBaseUrl + "'");
+        }
+
+        root = Path.of(rootDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        byte[] keyBytes;
+        if (signingKey == null || signingKey.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public String upload(String blobName, InputStream data, long length, String contentType) throws IOException {
+        write(blobName, data, length, true);
+        return URL_PREFIX + blobName;
+    }
+
+    @Override
+    public InputStream openStream(String blobUrl) throws IOException {
+        return Files.newInputStream(resolve(blobName(blobUrl)));
+    }
+
+    /**
+     * Stream exactly length bytes into the blob. The bytes go to a temp file
+     * next to the target first and are then moved into place, so readers never
+     * see a partially written blob.
+     * @param overwrite when false an existing blob is left alone and FileAlreadyExistsException is thrown
+     */
+    public void write(String blobName, InputStream data, long length, boolean overwrite) throws IOException {
+        Path target = resolve(blobName);
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try (ReadableByteChannel source = Channels.newChannel(data);
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            long transferred;
+            while (written < length && (transferred = channel.transferFrom(source, written, length - written)) > 0) {
+                written += transferred;
+            }
+            if (written != length) {
+                throw new IOException("Upload ended after " + written + " of " + length + " bytes");
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            if (overwrite) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                // Hard link creation fails if the target exists, unlike a rename
+                Files.createLink(target, temp);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String generateDownloadUrl(String blobUrl, int expiryMinutes) {
+        String blobName = blobName(blobUrl);
+        long expires = Instant.now().plusSeconds(expiryMinutes * 60L).getEpochSecond();
+
+        return baseUrl()
+                .path(DOWNLOAD_PATH + blobName)
+                .queryParam("expires", expires)
+                .queryParam("sig", sign("GET", blobName, String.valueOf(expires)))
+                .build()
+                .toUriString();
+    }
+
+    @Override
+    public void deleteFile(String blobUrl) {
+        try {
+            Files.deleteIfExists(resolve(blobName(blobUrl)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete blob " + blobUrl, e);
+        }
+    }
+
+    /**
+     * Write the chunk at its offset in a staging file; chunks may arrive in any order
+     */
+    @Override
+    public void stageChunk(String blobName, int index, long offset, InputStream data, long length) throws IOException {
+        Path staging = stagingPath(blobName);
+        Files.createDirectories(staging.getParent());
+        try (ReadableByteChannel source = Channels.newChannel(data);
+             FileChannel channel = FileChannel.open(staging, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long written = 0;
+            long transferred;
+            while (written < length
+                    && (transferred = channel.transferFrom(source, offset + written, length - written)) > 0) {
+                written += transferred;
+            }
+            if (written != length) {
+                throw new IOException("Chunk " + index + " ended after " + written + " of " + length + " bytes");
+            }
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public String commitChunks(String blobName, int chunkCount, String contentType) throws IOException {
+        Path staging = stagingPath(blobName);
+        Path target = resolve(blobName);
+        Files.createDirectories(target.getParent());
+        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return URL_PREFIX + blobName;
+    }
+
+    @Override
+    public void abortChunks(String blobName) {
+        try {
+            Files.deleteIfExists(stagingPath(blobName));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to discard staged chunks for " + blobName, e);
+        }
+    }
+
+    /**
+     * Signed PUT to LocalBlobController; content type and size are part of the signature
+     */
+    @Override
+    public SignedUpload generateUploadUrl(String blobName, String contentType, long size, int expiryMinutes) {
+        long expires = Instant.now().plusSeconds(expiryMinutes * 60L).getEpochSecond();
+        String url = baseUrl()
+                .path(DOWNLOAD_PATH + blobName)
+                .queryParam("expires", expires)
+                .queryParam("size", size)
+                .queryParam("sig", sign("PUT", blobName, String.valueOf(expires), contentType, String.valueOf(size)))
+                .build()
+                .toUriString();
+        return new SignedUpload(url, Map.of("Content-Type", contentType));
+    }
+
+    /**
+     * Content type is not stored on disk; uploads through a signed URL are
+     * checked against the signed type when they are written
+     */
+    @Override
+    public BlobInfo describe(String blobName) {
+        try {
+            Path path = resolve(blobName);
+            return Files.isRegularFile(path) ? new BlobInfo(Files.size(path), null) : null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read blob " + blobName, e);
+        }
+    }
+
+    @Override
+    public String blobUrl(String blobName) {
+        return URL_PREFIX + blobName;
+    }
+
+    /**
+     * Walks the root lazily, skipping staged chunks and in-flight temp files
+     */
+    @Override
+    public void listBlobs(String prefix, Consumer<ListedBlob> consumer) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> it = files
+                    .filter(path -> !path.startsWith(root.resolve(STAGING_DIR)))
+                    .filter(path -> !path.getFileName().toString().startsWith(".upload-"))
+                    .filter(Files::isRegularFile)
+                    .iterator();
+            while (it.hasNext()) {
+                Path path = it.next();
+                String blobName = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                if (blobName.startsWith(prefix)) {
+                    consumer.accept(new ListedBlob(URL_PREFIX + blobName, Files.getLastModifiedTime(path).toInstant()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Check a download signature; false if it is forged or expired
+     */
+    public boolean verifyRead(String blobName, long expires, String signature) {
+        return notExpired(expires) && matches(signature, sign("GET", blobName, String.valueOf(expires)));
+    }
+
+    /**
+     * Check an upload signature against the content type and size the client is sending
+     */
+    public boolean verifyWrite(String blobName, long expires, String contentType, long size, String signature) {
+        return notExpired(expires) && contentType != null
+                && matches(signature, sign("PUT", blobName, String.valueOf(expires), contentType, String.valueOf(size)));
+    }
+
+    /**
+     * Map a blob name to its file, refusing names that escape the root directory
+     */
+    public Path resolve(String blobName) {
+        Path path = root.resolve(blobName).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid blob name");
+        }
+        return path;
+    }
+
+    // Staging lives under the root so the final move stays on one filesystem
+    private Path stagingPath(String blobName) {
+        return root.resolve(STAGING_DIR).resolve(resolve(blobName).getFileName() + ".part");
+    }
+
+    private UriComponentsBuilder baseUrl() {
+        return UriComponentsBuilder.fromUriString(publicBaseUrl);
+    }
+
+    private boolean notExpired(long expires) {
+        return Instant.now().getEpochSecond() <= expires;
+    }
+
+    private boolean matches(String signature, String expected) {
+        return signature != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // The method is signed too, so a download link can never be used to write
+    private String sign(String... parts) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign blob URL", e);
+        }
+    }
+
+    @Override
+    public String blobName(String blobUrl) {
+        return blobUrl.startsWith(URL_PREFIX) ? blobUrl.substring(URL_PREFIX.length()) : blobUrl;
+    }
+}
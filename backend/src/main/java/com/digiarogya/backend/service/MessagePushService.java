@@ -0,0 +1,172 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.MessageResponse;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent event channel for messaging. Connected clients receive new
+ * messages and unread-count changes as they are committed, so they don't
+ * need to poll. Idle streams hold no request thread (servlet async), and
+ * sends run on virtual threads so a slow client never blocks the sender.
+ * Each stream has its own outbox drained by one task at a time, so a
+ * client sees events in the order they were published.
+ */
+@Service
+public class MessagePushService {
+
+    public static final String MESSAGE_EVENT = "message";
+    public static final String UNREAD_COUNT_EVENT = "unread-count";
+
+    private final Map<Long, Set<Subscriber>> emitters = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${messages.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    /**
+     * Open a stream for a user. The client reconnects when it times out.
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitters.compute(userId, (id, userEmitters) -> {
+            Set<Subscriber> updated = userEmitters != null ? userEmitters : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Flush headers right away so the client knows the stream is open
+        subscriber.send(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    public boolean isConnected(Long userId) {
+        Set<Subscriber> userEmitters = emitters.get(userId);
+        return userEmitters != null && !userEmitters.isEmpty();
+    }
+
+    /**
+     * Deliver a message to both participants once the current transaction commits
+     */
+    public void pushMessage(MessageResponse message) {
+        afterCommit(() -> {
+            publish(message.getSenderId(), MESSAGE_EVENT, message);
+            publish(message.getReceiverId(), MESSAGE_EVENT, message);
+        });
+    }
+
+    /**
+     * Deliver a user's new total unread count once the current transaction commits
+     */
+    public void pushUnreadCount(Long userId, long unreadCount) {
+        afterCommit(() -> publish(userId, UNREAD_COUNT_EVENT, Map.of("unreadCount", unreadCount)));
+    }
+
+    // Keeps proxies from closing idle streams and prunes connections that went away
+    @Scheduled(fixedRateString = "${messages.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.values().forEach(userEmitters ->
+                userEmitters.forEach(subscriber -> subscriber.send(SseEmitter.event().comment("ping"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(subscriber -> subscriber.emitter.complete()));
+        emitters.clear();
+        sendExecutor.shutdown();
+    }
+
+    private void publish(Long userId, String eventName, Object payload) {
+        Set<Subscriber> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        for (Subscriber subscriber : userEmitters) {
+            subscriber.send(SseEmitter.event().name(eventName).data(payload));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        emitters.computeIfPresent(subscriber.userId, (id, userEmitters) -> {
+            userEmitters.remove(subscriber);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    // One open stream. Events queue in the outbox; at most one drain task sends them, in order
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void send(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            outbox.add(event);
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = outbox.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client disconnected; drop the stream and whatever was still queued for it
+                        closed = true;
+                        outbox.clear();
+                        remove(this);
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag cleared is picked up here
+            } while (!outbox.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
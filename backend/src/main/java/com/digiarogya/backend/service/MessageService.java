@@ -2,41 +2,67 @@ package com.digiarogya.backend.service;
 
 import com.digiarogya.backend.dto.ConversationResponse;
 import com.digiarogya.backend.dto.MessageResponse;
+import com.digiarogya.backend.dto.UserIdentity;
+import com.digiarogya.backend.entity.Access;
+import com.digiarogya.backend.entity.Conversation;
 import com.digiarogya.backend.entity.Message;
 import com.digiarogya.backend.entity.Role;
-import com.digiarogya.backend.entity.User;
 import com.digiarogya.backend.exception.AccessDeniedException;
 import com.digiarogya.backend.exception.ValidationException;
 import com.digiarogya.backend.repository.AccessRepository;
+import com.digiarogya.backend.repository.ConversationRepository;
 import com.digiarogya.backend.repository.MessageRepository;
 import com.digiarogya.backend.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("app.service")
 public class MessageService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
     private final AccessRepository accessRepository;
-
-    public MessageService(MessageRepository messageRepository, UserRepository userRepository, AccessRepository accessRepository) {
+    private final AccessGrantCache accessGrantCache;
+    private final UserIdentityCache userIdentityCache;
+    private final MessagePushService messagePushService;
+
+    public MessageService(MessageRepository messageRepository, ConversationRepository conversationRepository,
+                          UserRepository userRepository, AccessRepository accessRepository,
+                          AccessGrantCache accessGrantCache, UserIdentityCache userIdentityCache,
+                          MessagePushService messagePushService) {
         this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
         this.userRepository = userRepository;
         this.accessRepository = accessRepository;
+        this.accessGrantCache = accessGrantCache;
+        this.userIdentityCache = userIdentityCache;
+        this.messagePushService = messagePushService;
     }
 
     /**
      * Check if two users can message each other (patient-doctor with active access)
      */
     private boolean canMessage(Long userId1, Long userId2) {
-        User user1 = userRepository.findById(userId1).orElse(null);
-        User user2 = userRepository.findById(userId2).orElse(null);
+        UserIdentity user1 = userIdentityCache.get(userId1);
+        UserIdentity user2 = userIdentityCache.get(userId2);
 
         if (user1 == null || user2 == null) {
             return false;
@@ -46,10 +72,10 @@ public class MessageService {
         Long patientId = null;
         Long doctorId = null;
 
-        if (user1.getRole() == Role.PATIENT && user2.getRole() == Role.DOCTOR) {
+        if (user1.role() == Role.PATIENT && user2.role() == Role.DOCTOR) {
             patientId = userId1;
             doctorId = userId2;
-        } else if (user1.getRole() == Role.DOCTOR && user2.getRole() == Role.PATIENT) {
+        } else if (user1.role() == Role.DOCTOR && user2.role() == Role.PATIENT) {
             patientId = userId2;
             doctorId = userId1;
         } else {
@@ -57,7 +83,7 @@ public class MessageService {
         }
 
         // Check if there's active access
-        return accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(patientId, doctorId, Instant.now());
+        return accessGrantCache.hasActiveAccess(patientId, doctorId);
     }
 
     /**
@@ -73,39 +99,81 @@ public class MessageService {
             throw new AccessDeniedException("You can only message users with active access permission");
         }
 
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new ValidationException("Sender not found"));
-        User receiver = userRepository.findById(receiverId)
-                .orElseThrow(() -> new ValidationException("Receiver not found"));
+        // canMessage has just resolved both, so these are cache hits
+        UserIdentity sender = userIdentityCache.get(senderId);
+        UserIdentity receiver = userIdentityCache.get(receiverId);
 
         Message message = new Message(senderId, receiverId, content.trim());
         message = messageRepository.save(message);
+        recordInConversation(message);
+
+        MessageResponse response = toMessageResponse(message, sender, receiver);
 
-        return toMessageResponse(message, sender, receiver);
+        // Push to connected participants once the message is committed
+        messagePushService.pushMessage(response);
+        if (messagePushService.isConnected(receiverId)) {
+            messagePushService.pushUnreadCount(receiverId, conversationRepository.sumUnreadForUser(receiverId));
+        }
+
+        return response;
     }
 
     /**
-     * Get conversation between current user and another user
+     * Get the latest messages in a conversation between current user and another user
      */
     @Transactional
     public List<MessageResponse> getConversation(Long currentUserId, Long otherUserId) {
+        return getConversation(currentUserId, otherUserId, null, null, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Get one page of a conversation, oldest first. With beforeId the page holds the
+     * messages just older than it; with afterId the ones just newer; otherwise the latest.
+     */
+    @Transactional
+    public List<MessageResponse> getConversation(Long currentUserId, Long otherUserId, Long beforeId, Long afterId, int limit) {
         if (!canMessage(currentUserId, otherUserId)) {
             throw new AccessDeniedException("You don't have access to message this user");
         }
+        if (beforeId != null && afterId != null) {
+            throw new ValidationException("Use either before or after, not both");
+        }
 
-        // Mark messages from other user as read
-        messageRepository.markMessagesAsRead(otherUserId, currentUserId);
+        Long lowUserId = Conversation.lowOf(currentUserId, otherUserId);
+        Long highUserId = Conversation.highOf(currentUserId, otherUserId);
+
+        // Mark messages from other user as read (only when the counter says there are any)
+        boolean hasUnread = conversationRepository.findByLowUserIdAndHighUserId(lowUserId, highUserId)
+                .map(c -> c.getUnreadCountFor(currentUserId) > 0)
+                .orElse(false);
+        if (hasUnread) {
+            // A message and its counter increment commit together, so what this marks is exactly what to subtract
+            int read = messageRepository.markMessagesAsRead(lowUserId, highUserId, otherUserId);
+            conversationRepository.markReadBy(lowUserId, highUserId, currentUserId, read);
+            if (read > 0 && messagePushService.isConnected(currentUserId)) {
+                messagePushService.pushUnreadCount(currentUserId, conversationRepository.sumUnreadForUser(currentUserId));
+            }
+        }
 
-        List<Message> messages = messageRepository.findConversation(currentUserId, otherUserId);
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<Message> messages;
+        if (afterId != null) {
+            messages = messageRepository.findInPairAfter(lowUserId, highUserId, afterId, page);
+        } else {
+            messages = new ArrayList<>(beforeId != null
+                    ? messageRepository.findInPairBefore(lowUserId, highUserId, beforeId, page)
+                    : messageRepository.findLatestInPair(lowUserId, highUserId, page));
+            Collections.reverse(messages);
+        }
 
         // Pre-fetch users for efficiency
-        User currentUser = userRepository.findById(currentUserId).orElse(null);
-        User otherUser = userRepository.findById(otherUserId).orElse(null);
+        UserIdentity currentUser = userIdentityCache.get(currentUserId);
+        UserIdentity otherUser = userIdentityCache.get(otherUserId);
 
         return messages.stream()
                 .map(msg -> {
-                    User sender = msg.getSenderId().equals(currentUserId) ? currentUser : otherUser;
-                    User receiver = msg.getReceiverId().equals(currentUserId) ? currentUser : otherUser;
+                    UserIdentity sender = msg.getSenderId().equals(currentUserId) ? currentUser : otherUser;
+                    UserIdentity receiver = msg.getReceiverId().equals(currentUserId) ? currentUser : otherUser;
                     return toMessageResponse(msg, sender, receiver);
                 })
                 .collect(Collectors.toList());
@@ -115,34 +183,37 @@ public class MessageService {
      * Get all conversations for a user
      */
     public List<ConversationResponse> getConversations(Long userId) {
-        List<Message> latestMessages = messageRepository.findLatestMessagesForUser(userId);
-        List<ConversationResponse> conversations = new ArrayList<>();
+        UserIdentity user = userIdentityCache.get(userId);
+        if (user == null) {
+            return new ArrayList<>();
+        }
 
-        for (Message msg : latestMessages) {
-            Long otherUserId = msg.getSenderId().equals(userId) ? msg.getReceiverId() : msg.getSenderId();
-            
-            // Check if there's still active access
-            if (!canMessage(userId, otherUserId)) {
-                continue; // Skip conversations without active access
-            }
+        List<Conversation> rows = conversationRepository.findForUser(userId);
 
-            User otherUser = userRepository.findById(otherUserId).orElse(null);
-            if (otherUser == null) continue;
+        // Resolve users and active grants once for the whole list
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(rows.stream().map(c -> c.getOtherUserId(userId)).toList());
+        Set<Long> activeContacts = findActiveContactIds(user);
+
+        List<ConversationResponse> conversations = new ArrayList<>();
 
-            long unreadCount = messageRepository.countUnreadInConversation(otherUserId, userId);
+        for (Conversation row : rows) {
+            Long otherUserId = row.getOtherUserId(userId);
 
-            String lastMessagePreview = msg.getContent();
-            if (lastMessagePreview.length() > 50) {
-                lastMessagePreview = lastMessagePreview.substring(0, 50) + "...";
+            // Skip conversations without active access
+            if (!activeContacts.contains(otherUserId)) {
+                continue;
             }
 
+            UserIdentity otherUser = users.get(otherUserId);
+            if (otherUser == null) continue;
+
             ConversationResponse conv = new ConversationResponse(
                     otherUserId,
-                    otherUser.getName(),
-                    otherUser.getRole().name(),
-                    lastMessagePreview,
-                    msg.getSentAt(),
-                    unreadCount
+                    otherUser.name(),
+                    otherUser.role().name(),
+                    row.getLastMessagePreview(),
+                    row.getLastMessageAt(),
+                    row.getUnreadCountFor(userId)
             );
             conversations.add(conv);
         }
@@ -154,69 +225,122 @@ public class MessageService {
      * Get total unread message count for a user
      */
     public long getUnreadCount(Long userId) {
-        return messageRepository.countUnreadMessages(userId);
+        return conversationRepository.sumUnreadForUser(userId);
     }
 
     /**
      * Get users the current user can message (those with active access)
      */
     public List<ConversationResponse> getMessageableUsers(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ValidationException("User not found"));
+        UserIdentity user = userIdentityCache.get(userId);
+        if (user == null) {
+            throw new ValidationException("User not found");
+        }
 
         List<ConversationResponse> result = new ArrayList<>();
+        List<Long> contactIds;
 
-        if (user.getRole() == Role.PATIENT) {
+        if (user.role() == Role.PATIENT) {
             // Get all doctors with active access to this patient
-            var accesses = accessRepository.findByPatientIdAndExpiresAtAfter(userId, Instant.now());
-            for (var access : accesses) {
-                User doctor = userRepository.findById(access.getDoctorId()).orElse(null);
-                if (doctor != null) {
-                    long unreadCount = messageRepository.countUnreadInConversation(doctor.getId(), userId);
-                    result.add(new ConversationResponse(
-                            doctor.getId(),
-                            doctor.getName(),
-                            doctor.getRole().name(),
-                            null,
-                            null,
-                            unreadCount
-                    ));
-                }
-            }
-        } else if (user.getRole() == Role.DOCTOR) {
+            contactIds = accessRepository.findByPatientIdAndExpiresAtAfter(userId, Instant.now()).stream()
+                    .map(Access::getDoctorId)
+                    .toList();
+        } else if (user.role() == Role.DOCTOR) {
             // Get all patients who have granted access to this doctor
-            var accesses = accessRepository.findByDoctorIdOrderByExpiresAtDesc(userId, null);
-            for (var access : accesses.getContent()) {
-                if (access.isExpired()) continue;
-                
-                User patient = userRepository.findById(access.getPatientId()).orElse(null);
-                if (patient != null) {
-                    long unreadCount = messageRepository.countUnreadInConversation(patient.getId(), userId);
-                    result.add(new ConversationResponse(
-                            patient.getId(),
-                            patient.getName(),
-                            patient.getRole().name(),
-                            null,
-                            null,
-                            unreadCount
-                    ));
-                }
+            contactIds = accessRepository.findByDoctorIdAndExpiresAtAfter(userId, Instant.now()).stream()
+                    .sorted(Comparator.comparing(Access::getExpiresAt).reversed())
+                    .map(Access::getPatientId)
+                    .toList();
+        } else {
+            return result;
+        }
+
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(contactIds);
+        Map<Long, Long> unreadCounts = unreadCountsByContact(userId);
+
+        for (Long contactId : contactIds) {
+            UserIdentity contact = users.get(contactId);
+            if (contact != null) {
+                result.add(new ConversationResponse(
+                        contact.id(),
+                        contact.name(),
+                        contact.role().name(),
+                        null,
+                        null,
+                        unreadCounts.getOrDefault(contactId, 0L)
+                ));
             }
         }
 
         return result;
     }
 
-    private MessageResponse toMessageResponse(Message message, User sender, User receiver) {
-        return new MessageResponse(
-                message.getId(),
-                message.getSenderId(),
-                sender != null ? sender.getName() : "Unknown",
-                message.getReceiverId(),
-                receiver != null ? receiver.getName() : "Unknown",
-                message.getContent(),
-                message.getSentAt(),
-                message.isRead()
+    /**
+     * Ids of the users this user currently holds (or has granted) active access with
+     */
+    private Set<Long> findActiveContactIds(UserIdentity user) {
+        Instant now = Instant.now();
+        if (user.role() == Role.PATIENT) {
+            return accessRepository.findByPatientIdAndExpiresAtAfter(user.id(), now).stream()
+                    .map(Access::getDoctorId)
+                    .collect(Collectors.toSet());
+        }
+        if (user.role() == Role.DOCTOR) {
+            return accessRepository.findByDoctorIdAndExpiresAtAfter(user.id(), now).stream()
+                    .map(Access::getPatientId)
+                    .collect(Collectors.toSet());
+        }
+        return Set.of();
+    }
+
+    private Map<Long, Long> unreadCountsByContact(Long userId) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Conversation row : conversationRepository.findForUser(userId)) {
+            counts.put(row.getOtherUserId(userId), row.getUnreadCountFor(userId));
+        }
+        return counts;
+    }
+
+    /**
+     * Keep the pair's conversation row in step with a newly saved message
+     * (same transaction): latest message and the receiver's unread counter.
+     */
+    private void recordInConversation(Message message) {
+        Long lowUserId = Conversation.lowOf(message.getSenderId(), message.getReceiverId());
+        Long highUserId = Conversation.highOf(message.getSenderId(), message.getReceiverId());
+        long lowIncrement = message.getReceiverId().equals(lowUserId) ? 1 : 0;
+        long highIncrement = 1 - lowIncrement;
+        String preview = Conversation.preview(message.getContent());
+
+        if (conversationRepository.recordMessage(lowUserId, highUserId, message.getId(), preview,
+                message.getSentAt(), lowIncrement, highIncrement) > 0) {
+            return;
+        }
+
+        // First message between the pair: lock the low user's row so concurrent
+        // first messages create the conversation exactly once
+        userRepository.findByIdForUpdate(lowUserId);
+        if (conversationRepository.recordMessage(lowUserId, highUserId, message.getId(), preview,
+                message.getSentAt(), lowIncrement, highIncrement) > 0) {
+            return;
+        }
+
+        Conversation conversation = new Conversation();
+        conversation.setLowUserId(lowUserId);
+        conversation.setHighUserId(highUserId);
+        conversation.setLastMessageId(message.getId());
+        conversation.setLastMessagePreview(preview);
+        conversation.setLastMessageAt(message.getSentAt());
+        conversation.setLowUnreadCount(lowIncrement);
+        conversation.setHighUnreadCount(highIncrement);
+        conversationRepository.save(conversation);
+    }
+
+    private MessageResponse toMessageResponse(Message message, UserIdentity sender, UserIdentity receiver) {
+        return MessageResponse.from(
+                message,
+                sender != null ? sender.name() : "Unknown",
+                receiver != null ? receiver.name() : "Unknown"
         );
     }
 }
@@ -0,0 +1,56 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.repository.ConversationRepository;
+import com.digiarogya.backend.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Brings messages stored before the denormalized messaging columns existed up
+ * to date: fills each message's canonical pair columns and adds a
+ * conversations row for every pair that has messages but no row yet.
+ * Both are single set-based statements that skip rows already done, so
+ * they run on every start. When another instance or a concurrent send wins
+ * the race on a pair's unique key, the insert rolls back and keeps theirs.
+ */
+@Component
+public class MessagingBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagingBackfill.class);
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MessagingBackfill(ConversationRepository conversationRepository, MessageRepository messageRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Integer updated = transactionTemplate.execute(status -> messageRepository.backfillPairColumns());
+        if (updated != null && updated > 0) {
+            logger.info("Backfilled pair columns on {} messages", updated);
+        }
+
+        // Runs every start: pairs written before this point (old instances mid-deploy, requests served
+        // before the application was ready) get their row; pairs that have one are skipped
+        try {
+            Integer conversations = transactionTemplate.execute(status -> conversationRepository.insertFromMessages());
+            if (conversations != null && conversations > 0) {
+                logger.info("Backfilled {} conversations from existing messages", conversations);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.info("A conversation was created concurrently; the rest are picked up on the next start");
+        }
+    }
+}
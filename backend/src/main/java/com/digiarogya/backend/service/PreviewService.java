@@ -0,0 +1,325 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.PreviewStatus;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.StoredBlob;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders downscaled JPEG previews of IMAGING and LAB_RESULT attachments
+ * (images, and the first page of PDFs) so list views don't download
+ * originals. Previews belong to the stored blob, so deduplicated
+ * attachments share one, and are written next to the original as
+ * {name}.preview.jpg. Rendering runs on a small fixed pool behind a bounded
+ * queue; work that doesn't fit stays PENDING and is picked up again by a
+ * periodic resubmit, which also covers restarts.
+ */
+@Service
+public class PreviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(PreviewService.class);
+
+    private static final Set<RecordType> PREVIEW_TYPES = EnumSet.of(RecordType.IMAGING, RecordType.LAB_RESULT);
+    private static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+    private static final String PDF_TYPE = "application/pdf";
+    private static final String PREVIEW_SUFFIX = ".preview.jpg";
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final BlobStore blobStore;
+    private final BlobDeletionService blobDeletionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    // Blobs queued or rendering on this instance, so the resubmit never queues one twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong renderedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @Value("${files.preview.max-dimension:320}")
+    private int maxDimension;
+
+    @Value("${files.preview.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${files.preview.max-source-bytes:52428800}")
+    private long maxSourceBytes;
+
+    public PreviewService(
+            StoredBlobRepository storedBlobRepository,
+            BlobStore blobStore,
+            BlobDeletionService blobDeletionService,
+            PlatformTransactionManager transactionManager,
+            @Value("${files.preview.threads:2}") int threads,
+            @Value("${files.preview.queue-capacity:100}") int queueCapacity
+    ) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.blobStore = blobStore;
+        this.blobDeletionService = blobDeletionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "preview-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a preview for an attachment's blob if its record type and format
+     * get one and the blob has none yet. Call inside the transaction that
+     * creates the attachment; rendering starts after it commits.
+     */
+    public void requestPreview(StoredBlob blob, RecordType recordType) {
+        if (blob == null || !PREVIEW_TYPES.contains(recordType) || !isSupported(blob.getContentType())) {
+            return;
+        }
+        if (storedBlobRepository.markPreviewPending(blob.getId()) == 0) {
+            return;
+        }
+        blob.setPreviewStatus(PreviewStatus.PENDING);
+        afterCommit(() -> submit(blob.getId()));
+    }
+
+    /**
+     * Queue PENDING blobs that no worker holds, e.g. after a restart or a full queue
+     */
+    @Scheduled(fixedDelayString = "${files.preview.resubmit-interval-ms:60000}")
+    public void resubmitPending() {
+        long lastId = 0;
+        List<StoredBlob> pending;
+        do {
+            // Always the first page after the last id seen: workers move rows out of PENDING meanwhile
+            pending = storedBlobRepository.findByPreviewStatusAndIdGreaterThanOrderByIdAsc(
+                    PreviewStatus.PENDING, lastId, PageRequest.of(0, 100));
+            for (StoredBlob blob : pending) {
+                lastId = blob.getId();
+                if (!inFlight.contains(blob.getId()) && !submit(blob.getId())) {
+                    return;
+                }
+            }
+        } while (!pending.isEmpty());
+    }
+
+    /**
+     * Render and store the preview for one blob on the calling thread
+     */
+    public void render(Long blobId) {
+        StoredBlob blob = storedBlobRepository.findById(blobId).orElse(null);
+        if (blob == null || blob.getPreviewStatus() != PreviewStatus.PENDING) {
+            return;
+        }
+
+        String previewUrl = null;
+        try {
+            if (blob.getSize() > maxSourceBytes) {
+                throw new IOException("Source is larger than " + maxSourceBytes + " bytes");
+            }
+            BufferedImage source = PDF_TYPE.equals(blob.getContentType())
+                    ? renderFirstPage(blob.getBlobUrl())
+                    : readImage(blob.getBlobUrl());
+            byte[] jpeg = encodeJpeg(downscale(source));
+            previewUrl = blobStore.upload(previewName(blobStore.blobName(blob.getBlobUrl())),
+                    new ByteArrayInputStream(jpeg), jpeg.length, "image/jpeg");
+            finish(blobId, previewUrl, PreviewStatus.READY);
+            renderedCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            log.warn("Failed to render preview for blob {}", blob.getBlobUrl(), e);
+            if (previewUrl == null) {
+                finish(blobId, null, PreviewStatus.FAILED);
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return workers.getQueue().size();
+    }
+
+    public long getRenderedCount() {
+        return renderedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    static String previewName(String blobName) {
+        int slash = blobName.lastIndexOf('/');
+        int dot = blobName.lastIndexOf('.');
+        String stem = dot > slash ? blobName.substring(0, dot) : blobName;
+        return stem + PREVIEW_SUFFIX;
+    }
+
+    private boolean isSupported(String contentType) {
+        return contentType != null && (IMAGE_TYPES.contains(contentType) || PDF_TYPE.equals(contentType));
+    }
+
+    // false when the queue is full; the blob stays PENDING for the next resubmit
+    private boolean submit(Long blobId) {
+        if (!inFlight.add(blobId)) {
+            return true;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    render(blobId);
+                } finally {
+                    inFlight.remove(blobId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(blobId);
+            return false;
+        }
+    }
+
+    // The blob may have been released while rendering; then the preview is garbage
+    private void finish(Long blobId, String previewUrl, PreviewStatus status) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            StoredBlob blob = storedBlobRepository.findByIdForUpdate(blobId).orElse(null);
+            if (blob == null) {
+                if (previewUrl != null) {
+                    blobDeletionService.schedule(previewUrl);
+                }
+                return;
+            }
+            blob.setPreviewUrl(previewUrl);
+            blob.setPreviewStatus(status);
+        });
+    }
+
+    // Decodes with subsampling so a huge scan never has to be held at full resolution
+    private BufferedImage readImage(String blobUrl) throws IOException {
+        try (InputStream in = blobStore.openStream(blobUrl);
+             ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (2 * maxDimension));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Rasterizes page one at roughly the preview size rather than at print resolution
+    private BufferedImage renderFirstPage(String blobUrl) throws IOException {
+        try (InputStream in = blobStore.openStream(blobUrl);
+             PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(in))) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF has no pages");
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float scale = 2f * maxDimension / Math.max(box.getWidth(), box.getHeight());
+            return new PDFRenderer(document).renderImage(0, Math.min(scale, 4f), ImageType.RGB);
+        }
+    }
+
+    // JPEG has no alpha, so transparent areas are flattened onto white
+    private BufferedImage downscale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
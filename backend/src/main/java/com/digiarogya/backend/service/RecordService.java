@@ -1,51 +1,68 @@
 package com.digiarogya.backend.service;
 
 import com.digiarogya.backend.dto.PaginatedPatientResponse;
+import com.digiarogya.backend.dto.FileUploadResponse;
 import com.digiarogya.backend.dto.PaginatedRecordResponse;
 import com.digiarogya.backend.dto.PatientAccessResponse;
 import com.digiarogya.backend.dto.PatientRecordResponse;
+import com.digiarogya.backend.dto.UserIdentity;
 import com.digiarogya.backend.entity.Access;
 import com.digiarogya.backend.entity.PatientRecord;
 import com.digiarogya.backend.entity.RecordType;
 import com.digiarogya.backend.entity.User;
 import com.digiarogya.backend.exception.AccessDeniedException;
 import com.digiarogya.backend.exception.AccessRequiredException;
+import com.digiarogya.backend.exception.ValidationException;
 import com.digiarogya.backend.repository.AccessRepository;
 import com.digiarogya.backend.repository.PatientRecordRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
 import com.digiarogya.backend.repository.UserRepository;
 import com.digiarogya.backend.dto.ActiveAccessResponse;
 import com.digiarogya.backend.dto.CreateRecordRequest;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("app.service")
 public class RecordService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final PatientRecordRepository patientRecordRepository;
     private final AccessRepository accessRepository;
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final AccessGrantCache accessGrantCache;
+    private final UserIdentityCache userIdentityCache;
+    private final RecordAttachmentRepository recordAttachmentRepository;
 
     public RecordService(
             PatientRecordRepository patientRecordRepository,
             AccessRepository accessRepository,
             UserRepository userRepository,
-            AuditLogService auditLogService
+            AuditLogService auditLogService,
+            AccessGrantCache accessGrantCache,
+            UserIdentityCache userIdentityCache,
+            RecordAttachmentRepository recordAttachmentRepository
     ) {
         this.patientRecordRepository = patientRecordRepository;
         this.accessRepository = accessRepository;
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
+        this.accessGrantCache = accessGrantCache;
+        this.userIdentityCache = userIdentityCache;
+        this.recordAttachmentRepository = recordAttachmentRepository;
     }
 
     // =========================
@@ -56,39 +73,35 @@ public class RecordService {
     }
 
     public PaginatedRecordResponse getMyRecords(Long patientId, String role, int page, int size, String typeFilter) {
+        return getMyRecords(patientId, role, page, size, typeFilter, null, null, false, false);
+    }
+
+    /**
+     * @param size records per page, capped at {@link #MAX_PAGE_SIZE}
+     * @param cursor when non-null, switches to keyset pagination ("" = first page) and page is ignored
+     * @param includeTotal whether to run the COUNT query; defaults to true for offset mode, false for cursor mode
+     * @param summary when true record content is left out of the list
+     * @param includeAttachments when true each record carries its attachment summaries
+     */
+    public PaginatedRecordResponse getMyRecords(Long patientId, String role, int page, int size, String typeFilter,
+                                                String cursor, Boolean includeTotal, boolean summary,
+                                                boolean includeAttachments) {
 
         if (!"PATIENT".equals(role)) {
             throw new AccessDeniedException("Only patients can view their records");
         }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<PatientRecord> recordPage;
-
+        RecordType type = null;
         if (typeFilter != null && !typeFilter.isEmpty() && !"ALL".equals(typeFilter)) {
             try {
-                RecordType type = RecordType.valueOf(typeFilter);
-                recordPage = patientRecordRepository.findByPatientIdAndType(patientId, type, pageable);
+                type = RecordType.valueOf(typeFilter);
             } catch (IllegalArgumentException e) {
                 // Invalid type filter, return all records
-                recordPage = patientRecordRepository.findByPatientId(patientId, pageable);
+                type = null;
             }
-        } else {
-            recordPage = patientRecordRepository.findByPatientId(patientId, pageable);
         }
 
-        List<PatientRecordResponse> records = recordPage.getContent().stream()
-                .map(PatientRecordResponse::from)
-                .collect(Collectors.toList());
-
-        return new PaginatedRecordResponse(
-                records,
-                recordPage.getNumber(),
-                recordPage.getTotalPages(),
-                recordPage.getTotalElements(),
-                recordPage.getSize(),
-                recordPage.hasNext(),
-                recordPage.hasPrevious()
-        );
+        return findRecords(patientId, type, page, size, cursor, includeTotal, summary, includeAttachments);
     }
 
     // =========================
@@ -101,53 +114,142 @@ public class RecordService {
             int page,
             int size
     ) {
+        return getPatientRecordsForDoctor(doctorId, patientId, role, page, size, null, null, false, false);
+    }
+
+    public PaginatedRecordResponse getPatientRecordsForDoctor(
+            Long doctorId,
+            Long patientId,
+            String role,
+            int page,
+            int size,
+            String cursor,
+            Boolean includeTotal,
+            boolean summary,
+            boolean includeAttachments
+    ) {
 
         if (!"DOCTOR".equals(role)) {
             throw new AccessDeniedException("Only doctors can access patient records");
         }
+        // Before the access check and audit entry, so a malformed request is not logged as a view
+        checkPaging(page, size, cursor);
 
-        boolean hasValidAccess =
-                accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(patientId, doctorId, Instant.now());
+        boolean hasValidAccess = accessGrantCache.hasActiveAccess(patientId, doctorId);
 
         if (!hasValidAccess) {
             throw new AccessRequiredException("Active access required from patient");
         }
 
         // Log access to patient records
-        User doctor = userRepository.findById(doctorId).orElse(null);
-        User patient = userRepository.findById(patientId).orElse(null);
-        if (doctor != null && page == 0) { // Only log on first page view to avoid duplicate logs
-            auditLogService.logAudit(
-                patientId,
-                patient != null ? patient.getName() : "Patient",
-                doctorId,
-                doctor.getName(),
-                "DOCTOR",
-                "RECORD_VIEWED",
-                null,
-                null,
-                "Doctor viewed patient records"
-            );
+        boolean firstPage = cursor != null ? cursor.isEmpty() : page == 0;
+        if (firstPage) { // Only log on first page view to avoid duplicate logs
+            Map<Long, UserIdentity> users = userIdentityCache.getAll(List.of(doctorId, patientId));
+            UserIdentity doctor = users.get(doctorId);
+            UserIdentity patient = users.get(patientId);
+            if (doctor != null) {
+                auditLogService.logAudit(
+                    patientId,
+                    patient != null ? patient.name() : "Patient",
+                    doctorId,
+                    doctor.name(),
+                    "DOCTOR",
+                    "RECORD_VIEWED",
+                    null,
+                    null,
+                    "Doctor viewed patient records"
+                );
+            }
+        }
+
+        return findRecords(patientId, null, page, size, cursor, includeTotal, summary, includeAttachments);
+    }
+
+    private PaginatedRecordResponse findRecords(Long patientId, RecordType type, int page, int size,
+                                                String cursor, Boolean includeTotal, boolean summary,
+                                                boolean includeAttachments) {
+        checkPaging(page, size, cursor);
+        size = Math.min(size, MAX_PAGE_SIZE);
+        boolean cursorMode = cursor != null;
+        boolean countTotal = includeTotal != null ? includeTotal : !cursorMode;
+
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+        if (cursorMode && !cursor.isEmpty()) {
+            RecordCursor after = RecordCursor.decode(cursor);
+            afterCreatedAt = after.createdAt();
+            afterId = after.id();
+        }
+        long offset = cursorMode ? 0 : (long) page * size;
+        if (offset > Integer.MAX_VALUE) {
+            throw new ValidationException("page is out of range");
         }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<PatientRecord> recordPage = patientRecordRepository.findByPatientId(patientId, pageable);
+        // Fetch one extra row to learn whether another page exists
+        List<PatientRecordResponse> records = patientRecordRepository.findRecordViews(
+                patientId, type, afterCreatedAt, afterId, summary, (int) offset, size + 1);
 
-        List<PatientRecordResponse> records = recordPage.getContent().stream()
-                .map(PatientRecordResponse::from)
-                .collect(Collectors.toList());
+        boolean hasNext = records.size() > size;
+        if (hasNext) {
+            records = records.subList(0, size);
+        }
+
+        if (includeAttachments) {
+            attachAttachments(records);
+        }
+
+        String nextCursor = null;
+        if (cursorMode && hasNext) {
+            PatientRecordResponse last = records.get(records.size() - 1);
+            nextCursor = new RecordCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long totalElements = null;
+        Integer totalPages = null;
+        if (countTotal) {
+            totalElements = type != null
+                    ? patientRecordRepository.countByPatientIdAndType(patientId, type)
+                    : patientRecordRepository.countByPatientId(patientId);
+            totalPages = (int) ((totalElements + size - 1) / size);
+        }
 
         return new PaginatedRecordResponse(
                 records,
-                recordPage.getNumber(),
-                recordPage.getTotalPages(),
-                recordPage.getTotalElements(),
-                recordPage.getSize(),
-                recordPage.hasNext(),
-                recordPage.hasPrevious()
+                cursorMode ? 0 : page,
+                totalPages,
+                totalElements,
+                size,
+                hasNext,
+                cursorMode ? !cursor.isEmpty() : page > 0,
+                nextCursor
         );
     }
 
+    // page only counts in offset mode; it is ignored once a cursor is given
+    private static void checkPaging(int page, int size, String cursor) {
+        if (size < 1) {
+            throw new ValidationException("size must be at least 1");
+        }
+        if (cursor == null && page < 0) {
+            throw new ValidationException("page must not be negative");
+        }
+    }
+
+    // One IN query for the page instead of a request per record
+    private void attachAttachments(List<PatientRecordResponse> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<Long> recordIds = records.stream().map(PatientRecordResponse::getId).toList();
+        Map<Long, List<FileUploadResponse>> byRecord = recordAttachmentRepository.findByRecordIdIn(recordIds).stream()
+                .collect(Collectors.groupingBy(
+                        a -> a.getRecord().getId(),
+                        Collectors.mapping(FileUploadResponse::from, Collectors.toList())));
+        for (PatientRecordResponse record : records) {
+            record.setAttachments(byRecord.getOrDefault(record.getId(), List.of()));
+        }
+    }
+
     // =========================
     // PATIENT: GRANT ACCESS
     // =========================
@@ -175,6 +277,7 @@ public class RecordService {
             Access access = existingAccess.get();
             access.setExpiresAt(expiresAt);
             accessRepository.save(access);
+            accessGrantCache.evict(patientId, doctor.getId());
             return;
         }
 
@@ -184,14 +287,15 @@ public class RecordService {
         access.setExpiresAt(expiresAt);
 
         accessRepository.save(access);
+        accessGrantCache.evict(patientId, doctor.getId());
 
         // Log access grant
-        User patient = userRepository.findById(patientId).orElse(null);
+        UserIdentity patient = userIdentityCache.get(patientId);
         auditLogService.logAudit(
             patientId,
-            patient != null ? patient.getName() : "Patient",
+            patient != null ? patient.name() : "Patient",
             patientId,
-            patient != null ? patient.getName() : "Patient",
+            patient != null ? patient.name() : "Patient",
             "PATIENT",
             "ACCESS_GRANTED",
             null,
@@ -211,19 +315,22 @@ public class RecordService {
             throw new AccessDeniedException("Only doctors can add records");
         }
 
-        boolean hasValidAccess =
-                accessRepository.existsByPatientIdAndDoctorIdAndExpiresAtAfter(patientId, doctorId, Instant.now());
+        boolean hasValidAccess = accessGrantCache.hasActiveAccess(patientId, doctorId);
 
         if (!hasValidAccess) {
             throw new AccessRequiredException("Access required to add record");
         }
 
-        User doctor = userRepository.findById(doctorId)
-                .orElseThrow(() -> new AccessDeniedException("Doctor not found"));
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(List.of(doctorId, patientId));
+        UserIdentity doctor = users.get(doctorId);
+        if (doctor == null) {
+            throw new AccessDeniedException("Doctor not found");
+        }
 
         PatientRecord record = new PatientRecord();
         record.setPatientId(patientId);
-        record.setCreatedByDoctor(doctor);
+        // Only the foreign key is written, so a reference is enough
+        record.setCreatedByDoctor(userRepository.getReferenceById(doctorId));
         record.setType(request.getType());
         record.setTitle(request.getTitle());
         record.setContent(request.getContent());
@@ -232,12 +339,12 @@ public class RecordService {
         PatientRecord savedRecord = patientRecordRepository.save(record);
 
         // Log record addition
-        User patient = userRepository.findById(patientId).orElse(null);
+        UserIdentity patient = users.get(patientId);
         auditLogService.logAudit(
             patientId,
-            patient != null ? patient.getName() : "Patient",
+            patient != null ? patient.name() : "Patient",
             doctorId,
-            doctor.getName(),
+            doctor.name(),
             "DOCTOR",
             "RECORD_ADDED",
             savedRecord.getId(),
@@ -259,14 +366,17 @@ public class RecordService {
         Pageable pageable = PageRequest.of(page, size);
         Page<Access> accessPage = accessRepository.findByDoctorIdOrderByExpiresAtDesc(doctorId, pageable);
 
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(
+                accessPage.getContent().stream().map(Access::getPatientId).toList());
+
         List<PatientAccessResponse> patients = accessPage.getContent().stream()
                 .map(access -> {
-                    User patient = userRepository.findById(access.getPatientId()).orElse(null);
+                    UserIdentity patient = users.get(access.getPatientId());
                     if (patient == null) return null;
                     return new PatientAccessResponse(
-                            patient.getId(),
-                            patient.getName(),
-                            patient.getEmail(),
+                            patient.id(),
+                            patient.name(),
+                            patient.email(),
                             access.getExpiresAt()
                     );
                 })
@@ -289,14 +399,17 @@ public class RecordService {
     // =========================
     public List<ActiveAccessResponse> getActiveAccesses(Long patientId) {
         List<Access> accesses = accessRepository.findByPatientIdAndExpiresAtAfter(patientId, Instant.now());
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(accesses.stream().map(Access::getDoctorId).toList());
 
         return accesses.stream().map(access -> {
-            User doctor = userRepository.findById(access.getDoctorId())
-                    .orElseThrow(() -> new RuntimeException("Doctor not found"));
+            UserIdentity doctor = users.get(access.getDoctorId());
+            if (doctor == null) {
+                throw new RuntimeException("Doctor not found");
+            }
             return new ActiveAccessResponse(
                     access.getId(),
-                    doctor.getName(),
-                    doctor.getEmail(),
+                    doctor.name(),
+                    doctor.email(),
                     access.getExpiresAt()
             );
         }).collect(Collectors.toList());
@@ -311,24 +424,26 @@ public class RecordService {
         }
 
         // Get doctor details before deleting access
-        User doctor = userRepository.findById(access.getDoctorId()).orElse(null);
-        User patient = userRepository.findById(patientId).orElse(null);
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(List.of(access.getDoctorId(), patientId));
+        UserIdentity doctor = users.get(access.getDoctorId());
+        UserIdentity patient = users.get(patientId);
 
         accessRepository.delete(access);
+        accessGrantCache.evict(access.getPatientId(), access.getDoctorId());
 
         // Log access revocation
         if (doctor != null && patient != null) {
             auditLogService.logAudit(
                 patientId,
-                patient.getName(),
+                patient.name(),
                 patientId,
-                patient.getName(),
+                patient.name(),
                 "PATIENT",
                 "ACCESS_REVOKED",
                 null,
                 null,
-                "Revoked access from Dr. " + doctor.getName(),
-                doctor.getId()
+                "Revoked access from Dr. " + doctor.name(),
+                doctor.id()
             );
         }
     }
@@ -350,24 +465,26 @@ public class RecordService {
         Instant newExpiresAt = access.getExpiresAt().plus(days, ChronoUnit.DAYS);
         access.setExpiresAt(newExpiresAt);
         accessRepository.save(access);
+        accessGrantCache.evict(access.getPatientId(), access.getDoctorId());
 
         // Get doctor and patient details for audit log
-        User doctor = userRepository.findById(access.getDoctorId()).orElse(null);
-        User patient = userRepository.findById(patientId).orElse(null);
+        Map<Long, UserIdentity> users = userIdentityCache.getAll(List.of(access.getDoctorId(), patientId));
+        UserIdentity doctor = users.get(access.getDoctorId());
+        UserIdentity patient = users.get(patientId);
 
         // Log access extension
         if (doctor != null && patient != null) {
             auditLogService.logAudit(
                 patientId,
-                patient.getName(),
+                patient.name(),
                 patientId,
-                patient.getName(),
+                patient.name(),
                 "PATIENT",
                 "ACCESS_EXTENDED",
                 null,
                 null,
-                "Extended access for Dr. " + doctor.getName() + " by " + days + " days",
-                doctor.getId()
+                "Extended access for Dr. " + doctor.name() + " by " + days + " days",
+                doctor.id()
             );
         }
     }
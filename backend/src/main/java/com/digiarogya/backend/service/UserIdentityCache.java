@@ -0,0 +1,163 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.UserIdentity;
+import com.digiarogya.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of user identities (id, name, email, role) so services
+ * that only need a display name or a role don't load the full user row.
+ * Misses for a whole list are resolved with a single IN query. Entries live
+ * for the TTL; every write to a user's name, email or role must call
+ * {@link #evict(Long)}.
+ */
+@Component
+public class UserIdentityCache {
+
+    private record Entry(UserIdentity identity, Instant loadedAt) {}
+
+    private final UserRepository userRepository;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load racing with an update never re-caches the old row
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${users.identity-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${users.identity-cache.max-entries:10000}")
+    private int maxEntries;
+
+    public UserIdentityCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Identity of one user, or null if there is no such user
+     */
+    public UserIdentity get(Long id) {
+        return getAll(List.of(id)).get(id);
+    }
+
+    /**
+     * Identities for the given ids, keyed by id. Missing ids are simply absent.
+     */
+    public Map<Long, UserIdentity> getAll(Collection<Long> ids) {
+        Instant now = Instant.now();
+        Instant loadedAfter = now.minus(Duration.ofSeconds(ttlSeconds));
+
+        Map<Long, UserIdentity> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null || found.containsKey(id) || missing.contains(id)) {
+                continue;
+            }
+            Entry entry = entries.get(id);
+            if (entry != null && entry.loadedAt().isAfter(loadedAfter)) {
+                hits.incrementAndGet();
+                found.put(id, entry.identity());
+            } else {
+                if (entry != null && entries.remove(id, entry)) {
+                    evictions.incrementAndGet();
+                }
+                misses.incrementAndGet();
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (UserIdentity identity : load(missing, now)) {
+                found.put(identity.id(), identity);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drop a user's cached identity. When called inside a transaction the entry
+     * is dropped again after commit, so readers cannot re-cache uncommitted state.
+     */
+    public void evict(Long id) {
+        invalidations.incrementAndGet();
+        entries.remove(id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidations.incrementAndGet();
+                    entries.remove(id);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+
+    /** Entries dropped for age or to stay within max-entries */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private List<UserIdentity> load(Set<Long> ids, Instant now) {
+        long generation = invalidations.get();
+
+        List<UserIdentity> loaded = new ArrayList<>(userRepository.findIdentitiesByIdIn(ids));
+
+        if (entries.size() + loaded.size() > maxEntries) {
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        }
+        for (UserIdentity identity : loaded) {
+            Entry entry = new Entry(identity, now);
+            entries.put(identity.id(), entry);
+            // An invalidation ran while we were reading; the row may predate it
+            if (invalidations.get() != generation) {
+                entries.remove(identity.id(), entry);
+            }
+        }
+
+        return loaded;
+    }
+}
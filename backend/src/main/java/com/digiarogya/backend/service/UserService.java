@@ -6,21 +6,24 @@ import com.digiarogya.backend.repository.UserRepository;
 import com.digiarogya.backend.exception.InvalidCredentialsException;
 import com.digiarogya.backend.exception.DuplicateEmailException;
 import com.digiarogya.backend.exception.ValidationException;
+import com.digiarogya.backend.security.PasswordHasher;
 
 
 import org.springframework.stereotype.Service;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final UserIdentityCache userIdentityCache;
 
-    public UserService(UserRepository userRepository,PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+                       UserIdentityCache userIdentityCache) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.userIdentityCache = userIdentityCache;
     }
 
     public User createUser(String name, String email, String password, Role role) {
@@ -37,10 +40,12 @@ public class UserService {
         User user = new User();
         user.setName(name);
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHasher.encode(password));
         user.setRole(role);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userIdentityCache.evict(saved.getId());
+        return saved;
     }
 
     public User login(String email, String password) {
@@ -48,10 +53,16 @@ public class UserService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(InvalidCredentialsException::new);
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHasher.matches(password, user.getPassword())) {
             throw new InvalidCredentialsException();
         }
 
+        // Rehash while the raw password is at hand if the cost has been raised since
+        if (passwordHasher.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordHasher.encode(password));
+            user = userRepository.save(user);
+        }
+
         return user;
     }
 
@@ -65,17 +76,19 @@ public class UserService {
         if (name != null && !name.trim().isEmpty()) {
             user.setName(name);
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userIdentityCache.evict(id);
+        return saved;
     }
 
     public void changePassword(Long id, String oldPassword, String newPassword) {
         User user = getUser(id);
         
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHasher.matches(oldPassword, user.getPassword())) {
             throw new InvalidCredentialsException();
         }
         
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         userRepository.save(user);
     }
 
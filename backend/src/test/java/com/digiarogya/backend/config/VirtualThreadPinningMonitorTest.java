@@ -0,0 +1,84 @@
+package com.digiarogya.backend.config;
+
+import com.digiarogya.backend.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTest {
+
+    private SimpleMeterRegistry registry;
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(registry, 20);
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void waitingOnTheHashingPoolDoesNotPinButSynchronizedSleepDoes() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(new SlowEncoder(), 1, 16, 5000);
+        try {
+            List<Thread> logins = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                logins.add(Thread.ofVirtual().start(() -> hasher.matches("secret", "hash")));
+            }
+            for (Thread login : logins) {
+                login.join();
+            }
+        } finally {
+            hasher.shutdown();
+        }
+
+        // A known pin after the logins; once it is seen, any pin from the logins would have been too
+        Object monitorLock = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitorLock) {
+                sleep(50);
+            }
+        }).join();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (monitor.getPinnedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(monitor.getPinnedCount()).isEqualTo(1);
+        assertThat(registry.get("jvm.threads.virtual.pinned").timer().count()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class SlowEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            sleep(50);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.digiarogya.backend.controller;
+
+import com.digiarogya.backend.exception.AccessDeniedException;
+import com.digiarogya.backend.service.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalBlobControllerTest {
+
+    @TempDir
+    private Path root;
+
+    private LocalBlobStore store;
+    private LocalBlobController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new LocalBlobStore();
+        ReflectionTestUtils.setField(store, "rootDir", root.toString());
+        ReflectionTestUtils.setField(store, "signingKey", "test-key");
+        ReflectionTestUtils.setField(store, "publicBaseUrl", "http://localhost:8080");
+        store.init();
+        controller = new LocalBlobController(store);
+    }
+
+    @Test
+    void servesWholeBlobAndSingleRanges() throws Exception {
+        UriComponents url = upload("0123456789");
+
+        MockHttpServletResponse whole = download(url, null);
+        assertThat(whole.getStatus()).isEqualTo(200);
+        assertThat(whole.getContentAsString()).isEqualTo("0123456789");
+        assertThat(whole.getContentType()).isEqualTo("text/plain");
+
+        MockHttpServletResponse middle = download(url, "bytes=2-5");
+        assertThat(middle.getStatus()).isEqualTo(206);
+        assertThat(middle.getHeader("Content-Range")).isEqualTo("bytes 2-5/10");
+        assertThat(middle.getContentAsString()).isEqualTo("2345");
+
+        assertThat(download(url, "bytes=-3").getContentAsString()).isEqualTo("789");
+        assertThat(download(url, "bytes=7-").getContentAsString()).isEqualTo("789");
+        assertThat(download(url, "bytes=20-").getStatus()).isEqualTo(416);
+    }
+
+    @Test
+    void refusesToStartWithoutPublicBaseUrl() {
+        LocalBlobStore unconfigured = new LocalBlobStore();
+        ReflectionTestUtils.setField(unconfigured, "rootDir", root.toString());
+        ReflectionTestUtils.setField(unconfigured, "signingKey", "test-key");
+        ReflectionTestUtils.setField(unconfigured, "publicBaseUrl", "");
+
+        assertThatThrownBy(unconfigured::init).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("blob.local.public-base-url");
+    }
+
+    @Test
+    void rejectsTamperedSignature() throws Exception {
+        UriComponents url = upload("secret");
+        String blobName = url.getPath().substring(LocalBlobStore.DOWNLOAD_PATH.length());
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+
+        assertThatThrownBy(() -> controller.download(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                "/" + blobName.replace("record-2", "record-3"), expires, url.getQueryParams().getFirst("sig")))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> controller.download(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                "/" + blobName, expires + 60, url.getQueryParams().getFirst("sig")))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void signedUploadWritesOnceWithTheSignedTypeAndSize() throws Exception {
+        String blobName = "patient-1/record-2/9b2f6a52-4a43-4f0e-9a3c-1f0e5d8f7c21.txt";
+        UriComponents url = UriComponentsBuilder.fromUriString(
+                store.generateUploadUrl(blobName, "text/plain", 5, 5).url()).build();
+
+        assertThat(put(url, "text/plain", "hello").getStatus()).isEqualTo(201);
+        assertThat(store.describe(blobName).size()).isEqualTo(5);
+        assertThat(put(url, "text/plain", "world").getStatus()).isEqualTo(409);
+        assertThatThrownBy(() -> put(url, "text/html", "hello")).isInstanceOf(AccessDeniedException.class);
+
+        // A download link never grants write access
+        UriComponents download = UriComponentsBuilder.fromUriString(store.generateDownloadUrl(blobName, 5)).build();
+        assertThatThrownBy(() -> controller.upload(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                "/" + blobName, Long.parseLong(download.getQueryParams().getFirst("expires")), 5,
+                download.getQueryParams().getFirst("sig")))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    private MockHttpServletResponse put(UriComponents url, String contentType, String content) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", url.getPath());
+        request.setContentType(contentType);
+        request.setContent(content.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.upload(request, response,
+                url.getPath().substring(LocalBlobStore.DOWNLOAD_PATH.length() - 1),
+                Long.parseLong(url.getQueryParams().getFirst("expires")),
+                Long.parseLong(url.getQueryParams().getFirst("size")),
+                url.getQueryParams().getFirst("sig"));
+        return response;
+    }
+
+    private UriComponents upload(String content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("files", "notes.txt", "text/plain",
+                content.getBytes(StandardCharsets.UTF_8));
+        String blobUrl = store.uploadFile(file, 1L, 2L);
+        return UriComponentsBuilder.fromUriString(store.generateDownloadUrl(blobUrl, 5)).build();
+    }
+
+    private MockHttpServletResponse download(UriComponents url, String range) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.download(request, response,
+                url.getPath().substring(LocalBlobStore.DOWNLOAD_PATH.length() - 1),
+                Long.parseLong(url.getQueryParams().getFirst("expires")),
+                url.getQueryParams().getFirst("sig"));
+        return response;
+    }
+}
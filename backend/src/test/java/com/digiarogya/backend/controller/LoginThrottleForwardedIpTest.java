@@ -0,0 +1,81 @@
+package com.digiarogya.backend.controller;
+
+import com.digiarogya.backend.exception.GlobalExceptionHandler;
+import com.digiarogya.backend.exception.InvalidCredentialsException;
+import com.digiarogya.backend.security.LoginThrottle;
+import com.digiarogya.backend.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Behind a proxy every connection comes from the proxy's address; with
+ * forwarded headers honoured (as in the production profile) the IP bucket
+ * must follow the client address the proxy reports instead.
+ */
+@SpringBootTest(
+        classes = {UserController.class, LoginThrottle.class, GlobalExceptionHandler.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.forward-headers-strategy=native",
+                "auth.throttle.ip.capacity=2",
+                "auth.throttle.ip.refill-per-minute=1"
+        })
+@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class,
+        EmbeddedWebServerFactoryCustomizerAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+class LoginThrottleForwardedIpTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private UserService userService;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private int attempt;
+
+    @BeforeEach
+    void rejectPasswords() {
+        when(userService.login(any(), any())).thenThrow(new InvalidCredentialsException());
+    }
+
+    @Test
+    void differentForwardedClientsGetSeparateBuckets() throws Exception {
+        assertThat(login("203.0.113.7")).isEqualTo(401);
+        assertThat(login("203.0.113.7")).isEqualTo(401);
+        assertThat(login("203.0.113.7")).isEqualTo(429);
+
+        // Same proxy connection, different client: its own bucket
+        assertThat(login("198.51.100.24")).isEqualTo(401);
+    }
+
+    private int login(String forwardedFor) throws Exception {
+        // A new email each time so only the IP bucket can run dry
+        String body = "{\"email\":\"user" + (attempt++) + "@example.com\",\"password\":\"wrong\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/users/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,97 @@
+package com.digiarogya.backend.security;
+
+import com.digiarogya.backend.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "emailCapacity", 2);
+        ReflectionTestUtils.setField(throttle, "emailRefillPerMinute", 1);
+        ReflectionTestUtils.setField(throttle, "ipCapacity", 3);
+        ReflectionTestUtils.setField(throttle, "ipRefillPerMinute", 1);
+        ReflectionTestUtils.setField(throttle, "maxEntries", 100);
+    }
+
+    @Test
+    void emptyEmailBucketRejectsWithRetryAfter() {
+        throttle.acquire("Nurse@Example.com", "10.0.0.1");
+        throttle.acquire("nurse@example.com", "10.0.0.2");
+
+        assertThatThrownBy(() -> throttle.acquire("nurse@example.com", "10.0.0.3"))
+                .isInstanceOfSatisfying(TooManyRequestsException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 60L));
+
+        // Other accounts are unaffected
+        throttle.acquire("doctor@example.com", "10.0.0.3");
+        assertThat(throttle.getThrottled()).isEqualTo(1);
+    }
+
+    @Test
+    void emptyIpBucketRejectsAnyEmail() {
+        throttle.acquire("a@example.com", "10.0.0.9");
+        throttle.acquire("b@example.com", "10.0.0.9");
+        throttle.acquire(null, "10.0.0.9");
+
+        assertThatThrownBy(() -> throttle.acquire("c@example.com", "10.0.0.9"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void saturatedHasherRejectsInsteadOfQueueing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher hasher = new PasswordHasher(blockingEncoder(started, release), 1, 1, 5000);
+        try {
+            Thread first = new Thread(() -> hasher.encode("first"));
+            first.start();
+            started.await();
+            Thread second = new Thread(() -> hasher.encode("queued"));
+            second.start();
+            while (hasher.getQueueSize() == 0) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> hasher.encode("third")).isInstanceOf(TooManyRequestsException.class);
+            assertThat(hasher.getRejected()).isEqualTo(1);
+
+            release.countDown();
+            first.join();
+            second.join();
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+}
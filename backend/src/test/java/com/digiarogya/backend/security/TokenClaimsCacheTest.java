@@ -0,0 +1,70 @@
+package com.digiarogya.backend.security;
+
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenClaimsCacheTest {
+
+    private TokenClaimsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenClaimsCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromCache() {
+        String token = JwtUtil.generateToken(user(7L, Role.DOCTOR));
+
+        TokenClaims first = cache.verify(token);
+        TokenClaims second = cache.verify(token);
+
+        assertThat(first.userId()).isEqualTo("7");
+        assertThat(first.role()).isEqualTo("DOCTOR");
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokensWithoutCachingThem() {
+        String token = JwtUtil.generateToken(user(7L, Role.PATIENT));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = Jwts.builder()
+                .setSubject("7")
+                .claim("role", "PATIENT")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(JwtUtil.SECRET_KEY)
+                .compact();
+
+        assertThatThrownBy(() -> cache.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> cache.verify(expired)).isInstanceOf(JwtException.class);
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        for (long id = 1; id <= 5; id++) {
+            cache.verify(JwtUtil.generateToken(user(id, Role.PATIENT)));
+        }
+        assertThat(cache.getSize()).isLessThanOrEqualTo(2);
+    }
+
+    private User user(Long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+}
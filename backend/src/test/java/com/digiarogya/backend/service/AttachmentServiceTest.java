@@ -0,0 +1,242 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import com.digiarogya.backend.repository.BlobTombstoneRepository;
+import com.digiarogya.backend.repository.PatientRecordRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import com.digiarogya.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Blob references are released and tombstoned in their own transactions,
+ * so these tests run without the usual test transaction and clean up after
+ * themselves.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttachmentServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PatientRecordRepository patientRecordRepository;
+
+    @Autowired
+    private RecordAttachmentRepository recordAttachmentRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private BlobTombstoneRepository blobTombstoneRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final FakeBlobStore blobStore = new FakeBlobStore();
+    private DownloadUrlCache downloadUrlCache;
+    private BlobDeletionService blobDeletionService;
+    private AttachmentService attachmentService;
+    private PatientRecord record;
+
+    @BeforeEach
+    void setUp() {
+        blobDeletionService = new BlobDeletionService(blobTombstoneRepository, blobStore, 100, 10, 1000, 4);
+        BlobReferenceService blobReferenceService =
+                new BlobReferenceService(storedBlobRepository, blobDeletionService, transactionManager);
+        downloadUrlCache = new DownloadUrlCache(blobStore);
+        ReflectionTestUtils.setField(downloadUrlCache, "expiryMinutes", 30);
+        ReflectionTestUtils.setField(downloadUrlCache, "refreshMinutes", 5);
+        ReflectionTestUtils.setField(downloadUrlCache, "maxEntries", 100);
+        PreviewService previewService = new PreviewService(
+                storedBlobRepository, blobStore, blobDeletionService, transactionManager, 1, 10);
+        attachmentService = new AttachmentService(blobStore, recordAttachmentRepository, blobReferenceService,
+                downloadUrlCache, blobDeletionService, previewService, transactionManager, 3);
+
+        User doctor = new User();
+        doctor.setName("Dr. Rao");
+        doctor.setEmail("dr.rao@example.com");
+        doctor.setPassword("hash");
+        doctor.setRole(Role.DOCTOR);
+        userRepository.save(doctor);
+
+        record = new PatientRecord();
+        record.setPatientId(1L);
+        record.setCreatedByDoctor(doctor);
+        // A type without previews, so no background rendering races the assertions
+        record.setType(RecordType.NOTE);
+        record.setTitle("CT");
+        record.setContent("Chest CT");
+        record.setDiagnosis("Routine");
+        patientRecordRepository.save(record);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        recordAttachmentRepository.deleteAll();
+        storedBlobRepository.deleteAll();
+        blobTombstoneRepository.deleteAll();
+        patientRecordRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void storesAllFilesAndInsertsRowsWithIds() throws Exception {
+        List<RecordAttachment> attachments = attachmentService.uploadFiles(record, files(10, -1));
+
+        assertThat(attachments).hasSize(10).allSatisfy(a -> assertThat(a.getId()).isNotNull());
+        assertThat(attachments).extracting(RecordAttachment::getFileName).startsWith("scan-0.png", "scan-1.png");
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).hasSize(10);
+        assertThat(blobStore.stored).hasSize(10);
+        assertThat(storedBlobRepository.count()).isEqualTo(10);
+    }
+
+    @Test
+    void storesIdenticalBytesOnceAndDeletesThemWithTheLastReference() throws Exception {
+        RecordAttachment first = attachmentService.uploadFiles(record, files(1, -1)).get(0);
+        RecordAttachment second = attachmentService.uploadFiles(record, files(1, -1)).get(0);
+
+        assertThat(blobStore.stored).hasSize(1);
+        assertThat(blobStore.uploads).hasValue(1);
+        assertThat(second.getBlobUrl()).isEqualTo(first.getBlobUrl());
+        assertThat(second.getBlobUrl()).startsWith("sha256/");
+        assertThat(storedBlobRepository.findById(first.getBlob().getId()))
+                .hasValueSatisfying(blob -> assertThat(blob.getRefCount()).isEqualTo(2));
+
+        downloadUrlCache.getDownloadUrl(first.getId(), first.getBlobUrl());
+        attachmentService.deleteAttachment(first);
+        assertThat(blobTombstoneRepository.count()).isZero();
+        assertThat(blobStore.stored).hasSize(1);
+        assertThat(downloadUrlCache.getSize()).isZero();
+
+        attachmentService.deleteAttachment(second);
+        assertThat(blobStore.stored).hasSize(1);
+        assertThat(blobDeletionService.processPending()).isEqualTo(1);
+        assertThat(blobStore.stored).isEmpty();
+        assertThat(storedBlobRepository.count()).isZero();
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).isEmpty();
+    }
+
+    @Test
+    void deletesUploadedBlobsWhenAnyFileFails() {
+        assertThatThrownBy(() -> attachmentService.uploadFiles(record, files(10, 4)))
+                .isInstanceOf(IOException.class);
+
+        blobDeletionService.processPending();
+        assertThat(blobStore.stored).isEmpty();
+        assertThat(storedBlobRepository.count()).isZero();
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).isEmpty();
+    }
+
+    private MultipartFile[] files(int count, int failingIndex) {
+        MultipartFile[] files = new MultipartFile[count];
+        for (int i = 0; i < count; i++) {
+            String name = i == failingIndex ? "broken.png" : "scan-" + i + ".png";
+            files[i] = new MockMultipartFile("files", name, "image/png", new byte[]{(byte) i});
+        }
+        return files;
+    }
+
+    private static class FakeBlobStore implements BlobStore {
+
+        final Set<String> stored = ConcurrentHashMap.newKeySet();
+        final AtomicInteger uploads = new AtomicInteger();
+
+        @Override
+        public String upload(String blobName, InputStream data, long length, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream openStream(String blobUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String uploadFile(MultipartFile file, String blobName) throws IOException {
+            if ("broken.png".equals(file.getOriginalFilename())) {
+                throw new IOException("Upload failed");
+            }
+            uploads.incrementAndGet();
+            stored.add(blobName);
+            return blobName;
+        }
+
+        @Override
+        public String generateDownloadUrl(String blobUrl, int expiryMinutes) {
+            return blobUrl;
+        }
+
+        @Override
+        public void deleteFile(String blobUrl) {
+            stored.remove(blobUrl);
+        }
+
+        @Override
+        public void stageChunk(String blobName, int index, long offset, InputStream data, long length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String commitChunks(String blobName, int chunkCount, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void abortChunks(String blobName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SignedUpload generateUploadUrl(String blobName, String contentType, long size, int expiryMinutes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BlobInfo describe(String blobName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String blobUrl(String blobName) {
+            return blobName;
+        }
+
+        @Override
+        public String blobName(String blobUrl) {
+            return blobUrl;
+        }
+
+        @Override
+        public void listBlobs(String prefix, Consumer<ListedBlob> consumer) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
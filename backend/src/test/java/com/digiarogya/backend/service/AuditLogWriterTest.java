@@ -0,0 +1,95 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.AuditLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The writer commits on its own connection, so these tests run without the
+ * usual test transaction and clean the table themselves.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuditLogWriterTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void clearAuditLog() {
+        jdbcTemplate.update("DELETE FROM audit_log");
+    }
+
+    @Test
+    void writesQueuedEventsInBatchesAndDrainsOnShutdown() {
+        AuditLogWriter writer = newWriter(100, 50, AuditLogWriter.Overflow.BLOCK);
+        writer.start();
+
+        for (int i = 0; i < 120; i++) {
+            writer.enqueue(event(i));
+        }
+        writer.shutdown();
+
+        assertThat(countRows()).isEqualTo(120);
+        assertThat(writer.getWrittenCount()).isEqualTo(120);
+        assertThat(writer.getFlushCount()).isLessThan(120);
+        assertThat(writer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void spillsWhenQueueIsFullAndReplaysWhenIdle() throws Exception {
+        AuditLogWriter writer = newWriter(1, 50, AuditLogWriter.Overflow.SPILL);
+
+        // Writer not started yet, so only the first event fits in the queue
+        for (int i = 0; i < 3; i++) {
+            writer.enqueue(event(i));
+        }
+        assertThat(writer.getSpilledCount()).isEqualTo(2);
+        assertThat(Files.readAllLines(tempDir.resolve("spill.jsonl"))).hasSize(2);
+
+        writer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getWrittenCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        writer.shutdown();
+
+        assertThat(countRows()).isEqualTo(3);
+        assertThat(tempDir.resolve("spill.jsonl")).doesNotExist();
+    }
+
+    private AuditLogWriter newWriter(int capacity, int batchSize, AuditLogWriter.Overflow overflow) {
+        return new AuditLogWriter(jdbcTemplate, capacity, batchSize, 50, 5000, overflow,
+                tempDir.resolve("spill.jsonl").toString());
+    }
+
+    private int countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class);
+    }
+
+    private AuditLog event(int i) {
+        AuditLog log = new AuditLog();
+        log.setPatientId(1L);
+        log.setPatientName("Patient");
+        log.setActorId(2L);
+        log.setActorName("Dr. Rao");
+        log.setActorRole("DOCTOR");
+        log.setAction("RECORD_VIEWED");
+        log.setDetails("View " + i);
+        return log;
+    }
+}
@@ -0,0 +1,179 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.BlobTombstone;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import com.digiarogya.backend.repository.BlobTombstoneRepository;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BlobOrphanSweeper.class, BlobDeletionService.class, LocalBlobStore.class})
+class BlobGarbageCollectionTest {
+
+    @TempDir
+    static Path blobRoot;
+
+    @DynamicPropertySource
+    static void blobProperties(DynamicPropertyRegistry registry) {
+        registry.add("blob.store", () -> "local");
+        registry.add("blob.local.root-dir", () -> blobRoot.toString());
+        registry.add("blob.deletion.initial-backoff-ms", () -> "60000");
+        registry.add("blob.gc.dry-run", () -> "false");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BlobOrphanSweeper blobOrphanSweeper;
+
+    @Autowired
+    private BlobDeletionService blobDeletionService;
+
+    @Autowired
+    private BlobTombstoneRepository blobTombstoneRepository;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private RecordAttachmentRepository recordAttachmentRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sweepQueuesOnlyOldUnreferencedBlobs() throws Exception {
+        Path referenced = writeBlob("patient-1/record-1/referenced.pdf", true);
+        Path orphan = writeBlob("patient-1/record-1/orphan.pdf", true);
+        Path fresh = writeBlob("patient-1/record-1/fresh.pdf", false);
+        persistAttachment(LocalBlobStore.URL_PREFIX + "patient-1/record-1/referenced.pdf");
+
+        assertThat(blobOrphanSweeper.sweep()).isEqualTo(1);
+        assertThat(blobTombstoneRepository.findAll()).extracting(BlobTombstone::getBlobUrl)
+                .containsExactly(LocalBlobStore.URL_PREFIX + "patient-1/record-1/orphan.pdf");
+
+        // A second sweep must not queue the same blob again
+        assertThat(blobOrphanSweeper.sweep()).isZero();
+
+        assertThat(blobDeletionService.processPending()).isEqualTo(1);
+        assertThat(orphan).doesNotExist();
+        assertThat(referenced).exists();
+        assertThat(fresh).exists();
+        assertThat(blobTombstoneRepository.count()).isZero();
+    }
+
+    @Test
+    void referencedBlobStoredUnderAnotherHostIsNotSwept() {
+        // The row was written while uploads went through a custom domain; storage is now listed via the account
+        persistAttachment("https://files.digiarogya.example/medical-records/patient-3/record-3/referenced.pdf");
+        String accountUrl = "https://digiarogya.blob.core.windows.net/medical-records/";
+        AzureBlobService azure = new AzureBlobService() {
+            @Override
+            public void listBlobs(String prefix, Consumer<ListedBlob> consumer) {
+                Instant old = Instant.now().minus(7, ChronoUnit.DAYS);
+                consumer.accept(new ListedBlob(accountUrl + "patient-3/record-3/referenced.pdf", old));
+                consumer.accept(new ListedBlob(accountUrl + "patient-3/record-3/orphan.pdf", old));
+            }
+        };
+        ReflectionTestUtils.setField(azure, "containerName", "medical-records");
+
+        BlobOrphanSweeper sweeper = new BlobOrphanSweeper(azure, recordAttachmentRepository, storedBlobRepository,
+                blobTombstoneRepository, blobDeletionService, transactionManager);
+        ReflectionTestUtils.setField(sweeper, "prefixes", List.of("patient-"));
+        ReflectionTestUtils.setField(sweeper, "pageSize", 500);
+        ReflectionTestUtils.setField(sweeper, "minAgeHours", 48L);
+        ReflectionTestUtils.setField(sweeper, "dryRun", true);
+
+        // Dry run: found, but nothing queued
+        assertThat(sweeper.sweep()).isEqualTo(1);
+        assertThat(blobTombstoneRepository.count()).isZero();
+
+        ReflectionTestUtils.setField(sweeper, "dryRun", false);
+        assertThat(sweeper.sweep()).isEqualTo(1);
+        assertThat(blobTombstoneRepository.findAll()).extracting(BlobTombstone::getBlobUrl)
+                .containsExactly(accountUrl + "patient-3/record-3/orphan.pdf");
+    }
+
+    @Test
+    void failedDeletesAreRetriedLater() throws Exception {
+        // A non-empty directory cannot be deleted, which stands in for a storage error
+        writeBlob("patient-2/record-2/nested/blob.pdf", false);
+        blobDeletionService.schedule(LocalBlobStore.URL_PREFIX + "patient-2/record-2/nested");
+
+        assertThat(blobDeletionService.processPending()).isZero();
+
+        BlobTombstone tombstone = blobTombstoneRepository.findAll().get(0);
+        assertThat(tombstone.getAttempts()).isEqualTo(1);
+        assertThat(tombstone.getLastError()).isNotBlank();
+        assertThat(tombstone.getNextAttemptAt()).isAfter(Instant.now().plus(50, ChronoUnit.SECONDS));
+
+        // Not due yet, so the next run leaves it alone
+        assertThat(blobDeletionService.processPending()).isZero();
+        assertThat(blobTombstoneRepository.findAll().get(0).getAttempts()).isEqualTo(1);
+    }
+
+    private Path writeBlob(String blobName, boolean old) throws Exception {
+        byte[] content = blobName.getBytes();
+        localBlobStore.write(blobName, new ByteArrayInputStream(content), content.length, true);
+        Path path = localBlobStore.resolve(blobName);
+        if (old) {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(7, ChronoUnit.DAYS)));
+        }
+        return path;
+    }
+
+    private void persistAttachment(String blobUrl) {
+        User doctor = new User();
+        doctor.setName("Dr. Shah");
+        doctor.setEmail("dr.shah@example.com");
+        doctor.setPassword("hash");
+        doctor.setRole(Role.DOCTOR);
+        entityManager.persist(doctor);
+
+        PatientRecord record = new PatientRecord();
+        record.setPatientId(1L);
+        record.setCreatedByDoctor(doctor);
+        record.setType(RecordType.LAB_RESULT);
+        record.setTitle("CBC");
+        record.setContent("Blood count");
+        record.setDiagnosis("Routine");
+        entityManager.persist(record);
+
+        RecordAttachment attachment = new RecordAttachment();
+        attachment.setRecord(record);
+        attachment.setFileName("referenced.pdf");
+        attachment.setBlobUrl(blobUrl);
+        attachment.setFileType("application/pdf");
+        attachment.setFileSize(10L);
+        entityManager.persistAndFlush(attachment);
+    }
+}
@@ -0,0 +1,154 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.CreateUploadSessionRequest;
+import com.digiarogya.backend.dto.FileUploadResponse;
+import com.digiarogya.backend.dto.UploadSessionResponse;
+import com.digiarogya.backend.entity.Access;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import com.digiarogya.backend.exception.ValidationException;
+import com.digiarogya.backend.repository.RecordAttachmentRepository;
+import com.digiarogya.backend.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({ChunkedUploadService.class, BlobReferenceService.class, BlobDeletionService.class, PreviewService.class, AccessGrantCache.class, LocalBlobStore.class})
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    static Path blobRoot;
+
+    @DynamicPropertySource
+    static void blobProperties(DynamicPropertyRegistry registry) {
+        registry.add("blob.store", () -> "local");
+        registry.add("blob.local.root-dir", () -> blobRoot.toString());
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private RecordAttachmentRepository recordAttachmentRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    private User doctor;
+    private PatientRecord record;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(chunkedUploadService, "minChunkSize", 1L);
+
+        doctor = persistUser("Dr. Rao", Role.DOCTOR);
+        User patient = persistUser("Patient A", Role.PATIENT);
+
+        Access access = new Access();
+        access.setPatientId(patient.getId());
+        access.setDoctorId(doctor.getId());
+        access.setExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS));
+        entityManager.persist(access);
+
+        record = new PatientRecord();
+        record.setPatientId(patient.getId());
+        record.setCreatedByDoctor(doctor);
+        record.setType(RecordType.IMAGING);
+        record.setTitle("MRI");
+        record.setContent("Knee MRI");
+        record.setDiagnosis("Routine");
+        entityManager.persistAndFlush(record);
+    }
+
+    @Test
+    void assemblesChunksSentOutOfOrderAndResentAfterFailure() throws Exception {
+        byte[] content = "0123456789abcdefghij-tail".getBytes();
+        UploadSessionResponse session = createSession(content.length, 10);
+        assertThat(session.getChunkCount()).isEqualTo(3);
+
+        put(session, 2, content);
+        put(session, 0, content);
+        // A dropped connection: the chunk is not recorded and can be sent again
+        assertThatThrownBy(() -> chunkedUploadService.putChunk(session.getUploadId(), doctor.getId(), 1, 10,
+                new ByteArrayInputStream(content, 10, 4)))
+                .hasMessageContaining("ended after 4 of 10 bytes");
+        assertThat(chunkedUploadService.getSession(session.getUploadId(), doctor.getId()).getReceivedChunks())
+                .containsExactly(0, 2);
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).isEmpty();
+
+        put(session, 1, content);
+        FileUploadResponse attachment = chunkedUploadService.commit(session.getUploadId(), doctor.getId());
+
+        assertThat(attachment.getFileSize()).isEqualTo(content.length);
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).hasSize(1);
+        assertThat(uploadSessionRepository.findById(session.getUploadId())).isEmpty();
+        Path stored = localBlobStore.resolve(attachment.getFileUrl().substring(LocalBlobStore.URL_PREFIX.length()));
+        assertThat(Files.readAllBytes(stored)).isEqualTo(content);
+    }
+
+    @Test
+    void refusesToCommitIncompleteUpload() throws Exception {
+        byte[] content = new byte[25];
+        UploadSessionResponse session = createSession(content.length, 10);
+        put(session, 0, content);
+
+        assertThatThrownBy(() -> chunkedUploadService.commit(session.getUploadId(), doctor.getId()))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> chunkedUploadService.putChunk(session.getUploadId(), doctor.getId(), 1, 9,
+                new ByteArrayInputStream(content)))
+                .isInstanceOf(ValidationException.class);
+        assertThat(recordAttachmentRepository.findByRecordId(record.getId())).isEmpty();
+    }
+
+    private UploadSessionResponse createSession(long totalSize, long chunkSize) {
+        CreateUploadSessionRequest request = new CreateUploadSessionRequest();
+        request.setRecordId(record.getId());
+        request.setFileName("scan.dcm");
+        request.setContentType("application/dicom");
+        request.setTotalSize(totalSize);
+        request.setChunkSize(chunkSize);
+        return chunkedUploadService.createSession(doctor.getId(), "DOCTOR", request);
+    }
+
+    private void put(UploadSessionResponse session, int index, byte[] content) throws Exception {
+        int from = (int) (index * session.getChunkSize());
+        byte[] chunk = Arrays.copyOfRange(content, from, (int) Math.min(content.length, from + session.getChunkSize()));
+        chunkedUploadService.putChunk(session.getUploadId(), doctor.getId(), index, chunk.length,
+                new ByteArrayInputStream(chunk));
+    }
+
+    private User persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+        user.setPassword("hash");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,47 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.Conversation;
+import com.digiarogya.backend.entity.Message;
+import com.digiarogya.backend.repository.ConversationRepository;
+import com.digiarogya.backend.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ConversationReadCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Test
+    void messageCountedAfterTheReadIsMarkedStaysUnread() {
+        Message seen = entityManager.persist(new Message(1L, 2L, "Your results are ready"));
+        Conversation conversation = new Conversation();
+        conversation.setLowUserId(1L);
+        conversation.setHighUserId(2L);
+        conversation.setLastMessageId(seen.getId());
+        conversation.setLastMessageAt(seen.getSentAt());
+        // The first message, plus one whose send committed after the reader's mark-read statement
+        conversation.setHighUnreadCount(2);
+        entityManager.persistAndFlush(conversation);
+
+        int read = messageRepository.markMessagesAsRead(1L, 2L, 1L);
+        conversationRepository.markReadBy(1L, 2L, 2L, read);
+        entityManager.clear();
+
+        assertThat(read).isEqualTo(1);
+        Conversation after = conversationRepository.findByLowUserIdAndHighUserId(1L, 2L).orElseThrow();
+        assertThat(after.getHighUnreadCount()).isEqualTo(1);
+        assertThat(after.getLowUnreadCount()).isZero();
+    }
+}
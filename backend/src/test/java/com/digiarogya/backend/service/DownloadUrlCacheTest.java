@@ -0,0 +1,65 @@
+package com.digiarogya.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownloadUrlCacheTest {
+
+    @TempDir
+    private Path root;
+
+    private DownloadUrlCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalBlobStore store = new LocalBlobStore();
+        ReflectionTestUtils.setField(store, "rootDir", root.toString());
+        ReflectionTestUtils.setField(store, "signingKey", "test-key");
+        ReflectionTestUtils.setField(store, "publicBaseUrl", "http://localhost:8080");
+        store.init();
+
+        cache = new DownloadUrlCache(store);
+        ReflectionTestUtils.setField(cache, "expiryMinutes", 30);
+        ReflectionTestUtils.setField(cache, "refreshMinutes", 5);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+    }
+
+    @Test
+    void reusesUrlUntilEvicted() {
+        String url = cache.getDownloadUrl(1L, "patient-1/record-1/a.pdf");
+
+        assertThat(cache.getDownloadUrl(1L, "patient-1/record-1/a.pdf")).isSameAs(url);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        cache.evict(1L);
+        cache.getDownloadUrl(1L, "patient-1/record-1/a.pdf");
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void signsAgainWhenUrlIsWithinRefreshWindow() {
+        ReflectionTestUtils.setField(cache, "refreshMinutes", 30);
+
+        cache.getDownloadUrl(1L, "patient-1/record-1/a.pdf");
+        cache.getDownloadUrl(1L, "patient-1/record-1/a.pdf");
+
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        for (long id = 1; id <= 5; id++) {
+            cache.getDownloadUrl(id, "patient-1/record-1/" + id + ".pdf");
+        }
+
+        assertThat(cache.getSize()).isLessThanOrEqualTo(2);
+    }
+}
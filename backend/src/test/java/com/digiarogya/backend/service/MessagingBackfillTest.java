@@ -0,0 +1,92 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.Conversation;
+import com.digiarogya.backend.entity.Message;
+import com.digiarogya.backend.repository.ConversationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(MessagingBackfill.class)
+class MessagingBackfillTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessagingBackfill messagingBackfill;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Test
+    void buildsOneConversationPerPairWithLatestMessageAndUnreadCounts() {
+        persistMessage(7L, 3L, "Please bring your latest reports", true);
+        persistMessage(3L, 7L, "Will do", false);
+        persistMessage(7L, 3L, "x".repeat(80), false);
+        persistMessage(7L, 3L, "And fast before the scan", false);
+        Message latest = persistMessage(3L, 7L, "Thanks, see you Monday", false);
+        Message other = persistMessage(9L, 3L, "Lab results are in", false);
+        entityManager.flush();
+
+        messagingBackfill.backfill();
+        entityManager.clear();
+
+        Conversation pair = conversationRepository.findByLowUserIdAndHighUserId(3L, 7L).orElseThrow();
+        assertThat(pair.getLastMessageId()).isEqualTo(latest.getId());
+        assertThat(pair.getLastMessagePreview()).isEqualTo("Thanks, see you Monday");
+        // User 3 has two unread from 7; user 7 has two unread from 3
+        assertThat(pair.getLowUnreadCount()).isEqualTo(2);
+        assertThat(pair.getHighUnreadCount()).isEqualTo(2);
+
+        Conversation single = conversationRepository.findByLowUserIdAndHighUserId(3L, 9L).orElseThrow();
+        assertThat(single.getLastMessageId()).isEqualTo(other.getId());
+        assertThat(single.getLowUnreadCount()).isEqualTo(1);
+        assertThat(single.getHighUnreadCount()).isZero();
+
+        // A second instance running the same insert finds every pair done
+        assertThat(conversationRepository.insertFromMessages()).isZero();
+        assertThat(conversationRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void pairsMissingARowAreAddedEvenWhenOthersExist() {
+        persistMessage(1L, 2L, "Already tracked", false);
+        entityManager.flush();
+        messagingBackfill.backfill();
+
+        // Written by an older instance that does not maintain conversations
+        Message untracked = persistMessage(4L, 5L, "Sent during the deploy", false);
+        entityManager.flush();
+        messagingBackfill.backfill();
+        entityManager.clear();
+
+        assertThat(conversationRepository.count()).isEqualTo(2);
+        Conversation added = conversationRepository.findByLowUserIdAndHighUserId(4L, 5L).orElseThrow();
+        assertThat(added.getLastMessageId()).isEqualTo(untracked.getId());
+        assertThat(added.getHighUnreadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void longLatestMessageIsCutToThePreviewLength() {
+        persistMessage(1L, 2L, "y".repeat(80), false);
+        entityManager.flush();
+
+        messagingBackfill.backfill();
+        entityManager.clear();
+
+        assertThat(conversationRepository.findByLowUserIdAndHighUserId(1L, 2L).orElseThrow().getLastMessagePreview())
+                .isEqualTo(Conversation.preview("y".repeat(80)));
+    }
+
+    private Message persistMessage(Long senderId, Long receiverId, String content, boolean read) {
+        Message message = new Message(senderId, receiverId, content);
+        message.setRead(read);
+        return entityManager.persist(message);
+    }
+}
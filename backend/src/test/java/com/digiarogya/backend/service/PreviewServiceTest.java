@@ -0,0 +1,122 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.entity.PreviewStatus;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.StoredBlob;
+import com.digiarogya.backend.repository.StoredBlobRepository;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs inside the test transaction, so requestPreview never hands work to
+ * the pool (that happens after commit) and render is called directly.
+ */
+@DataJpaTest
+@Import({PreviewService.class, BlobDeletionService.class, LocalBlobStore.class})
+class PreviewServiceTest {
+
+    @TempDir
+    static java.nio.file.Path blobRoot;
+
+    @DynamicPropertySource
+    static void blobProperties(DynamicPropertyRegistry registry) {
+        registry.add("blob.store", () -> "local");
+        registry.add("blob.local.root-dir", () -> blobRoot.toString());
+    }
+
+    @Autowired
+    private PreviewService previewService;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Test
+    void rendersDownscaledJpegNextToTheOriginal() throws Exception {
+        BufferedImage scan = new BufferedImage(1600, 800, BufferedImage.TYPE_INT_ARGB);
+        StoredBlob blob = store("patient-1/record-1/scan.png", "image/png", png(scan));
+
+        previewService.requestPreview(blob, RecordType.IMAGING);
+        assertThat(blob.getPreviewStatus()).isEqualTo(PreviewStatus.PENDING);
+        previewService.render(blob.getId());
+
+        StoredBlob rendered = storedBlobRepository.findById(blob.getId()).orElseThrow();
+        assertThat(rendered.getPreviewStatus()).isEqualTo(PreviewStatus.READY);
+        assertThat(rendered.getPreviewUrl()).isEqualTo(LocalBlobStore.URL_PREFIX + "patient-1/record-1/scan.preview.jpg");
+
+        BufferedImage preview = read(rendered.getPreviewUrl());
+        assertThat(preview.getWidth()).isEqualTo(320);
+        assertThat(preview.getHeight()).isEqualTo(160);
+    }
+
+    @Test
+    void rendersFirstPageOfPdf() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.save(pdf);
+        }
+        StoredBlob blob = store("patient-1/record-2/report.pdf", "application/pdf", pdf.toByteArray());
+
+        previewService.requestPreview(blob, RecordType.LAB_RESULT);
+        previewService.render(blob.getId());
+
+        StoredBlob rendered = storedBlobRepository.findById(blob.getId()).orElseThrow();
+        assertThat(rendered.getPreviewStatus()).isEqualTo(PreviewStatus.READY);
+        assertThat(read(rendered.getPreviewUrl()).getHeight()).isEqualTo(320);
+    }
+
+    @Test
+    void skipsOtherRecordTypesAndMarksUnreadableFilesFailed() throws Exception {
+        StoredBlob note = store("patient-1/record-3/photo.png", "image/png", png(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+        previewService.requestPreview(note, RecordType.NOTE);
+        assertThat(note.getPreviewStatus()).isNull();
+
+        StoredBlob broken = store("patient-1/record-4/broken.png", "image/png", new byte[]{1, 2, 3});
+        previewService.requestPreview(broken, RecordType.IMAGING);
+        previewService.render(broken.getId());
+        assertThat(storedBlobRepository.findById(broken.getId()).orElseThrow().getPreviewStatus())
+                .isEqualTo(PreviewStatus.FAILED);
+    }
+
+    private StoredBlob store(String blobName, String contentType, byte[] content) throws Exception {
+        localBlobStore.write(blobName, new ByteArrayInputStream(content), content.length, true);
+        StoredBlob blob = new StoredBlob();
+        blob.setBlobUrl(localBlobStore.blobUrl(blobName));
+        blob.setSize((long) content.length);
+        blob.setContentType(contentType);
+        blob.setRefCount(1);
+        return storedBlobRepository.saveAndFlush(blob);
+    }
+
+    private byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private BufferedImage read(String blobUrl) throws Exception {
+        try (InputStream in = localBlobStore.openStream(blobUrl)) {
+            return ImageIO.read(in);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.PaginatedRecordResponse;
+import com.digiarogya.backend.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({RecordService.class, AuditLogService.class, AuditLogWriter.class, AccessGrantCache.class, UserIdentityCache.class})
+class RecordPagingTest {
+
+    @Autowired
+    private RecordService recordService;
+
+    @Test
+    void malformedPagingIsRejectedAsValidationError() {
+        assertThatThrownBy(() -> recordService.getMyRecords(1L, "PATIENT", 0, 0, null))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> recordService.getMyRecords(1L, "PATIENT", 0, 0, null, "", null, false, false))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> recordService.getMyRecords(1L, "PATIENT", -1, 10, null))
+                .isInstanceOf(ValidationException.class);
+        // page * size no longer fits the offset
+        assertThatThrownBy(() -> recordService.getMyRecords(1L, "PATIENT", Integer.MAX_VALUE, 10, null))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void cursorWithAnOutOfRangeTimestampIsRejectedAsValidationError() {
+        String outOfRange = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((Long.MAX_VALUE + ":0:1").getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> recordService.getMyRecords(1L, "PATIENT", 0, 10, null, outOfRange, null, false, false))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void sizeIsCappedAndPageIsIgnoredWithACursor() {
+        PaginatedRecordResponse capped = recordService.getMyRecords(1L, "PATIENT", 0, 100_000, null);
+        assertThat(capped.getPageSize()).isEqualTo(RecordService.MAX_PAGE_SIZE);
+        assertThat(capped.getTotalPages()).isZero();
+
+        PaginatedRecordResponse cursorPage = recordService.getMyRecords(1L, "PATIENT", -1, 10, null, "", null, false, false);
+        assertThat(cursorPage.getRecords()).isEmpty();
+    }
+}
@@ -0,0 +1,261 @@
+package com.digiarogya.backend.service;
+
+import com.digiarogya.backend.dto.PaginatedRecordResponse;
+import com.digiarogya.backend.entity.Access;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordAttachment;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * List endpoints must resolve users in one batch (or join them in the list
+ * query), so the number of SQL statements stays the same whether a page
+ * holds 5 rows or 50.
+ */
+@DataJpaTest
+@Import({RecordService.class, MessageService.class, MessagePushService.class, AuditLogService.class, AuditLogWriter.class, AccessGrantCache.class, UserIdentityCache.class})
+class UserLookupQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RecordService recordService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void getMyPatientsUsesConstantQueriesRegardlessOfPageSize() {
+        User doctor = persistUser("Dr. Rao", Role.DOCTOR);
+        grantFromNewPatients(doctor, 60, false);
+
+        long smallPage = countStatements(() -> recordService.getMyPatients(doctor.getId(), "DOCTOR", 0, 5));
+        long largePage = countStatements(() -> recordService.getMyPatients(doctor.getId(), "DOCTOR", 0, 50));
+
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void getActiveAccessesUsesConstantQueriesRegardlessOfGrantCount() {
+        User fewDoctorsPatient = persistUser("Patient A", Role.PATIENT);
+        User manyDoctorsPatient = persistUser("Patient B", Role.PATIENT);
+        grantToNewDoctors(fewDoctorsPatient, 3);
+        grantToNewDoctors(manyDoctorsPatient, 40);
+
+        long few = countStatements(() -> recordService.getActiveAccesses(fewDoctorsPatient.getId()));
+        long many = countStatements(() -> recordService.getActiveAccesses(manyDoctorsPatient.getId()));
+
+        assertThat(many).isEqualTo(few);
+    }
+
+    @Test
+    void messagingListsUseConstantQueriesRegardlessOfContactCount() {
+        User smallDoctor = persistUser("Dr. Small", Role.DOCTOR);
+        User largeDoctor = persistUser("Dr. Large", Role.DOCTOR);
+        grantFromNewPatients(smallDoctor, 5, true);
+        grantFromNewPatients(largeDoctor, 50, true);
+
+        long smallContacts = countStatements(() -> messageService.getMessageableUsers(smallDoctor.getId()));
+        long largeContacts = countStatements(() -> messageService.getMessageableUsers(largeDoctor.getId()));
+        assertThat(largeContacts).isEqualTo(smallContacts);
+
+        long smallConversations = countStatements(() -> assertThat(messageService.getConversations(smallDoctor.getId())).hasSize(5));
+        long largeConversations = countStatements(() -> assertThat(messageService.getConversations(largeDoctor.getId())).hasSize(50));
+        assertThat(largeConversations).isEqualTo(smallConversations);
+    }
+
+    @Test
+    void conversationRowTracksUnreadCounters() {
+        User doctor = persistUser("Dr. Menon", Role.DOCTOR);
+        User patient = persistUser("Patient D", Role.PATIENT);
+        persistAccess(patient, doctor);
+
+        messageService.sendMessage(patient.getId(), doctor.getId(), "First");
+        messageService.sendMessage(patient.getId(), doctor.getId(), "Second");
+        messageService.sendMessage(doctor.getId(), patient.getId(), "Reply");
+        // Each call is its own request in production; drop entities cached by this test transaction
+        entityManager.clear();
+
+        assertThat(messageService.getUnreadCount(doctor.getId())).isEqualTo(2);
+        assertThat(messageService.getUnreadCount(patient.getId())).isEqualTo(1);
+        assertThat(messageService.getConversations(doctor.getId()))
+                .singleElement()
+                .satisfies(c -> {
+                    assertThat(c.getLastMessage()).isEqualTo("Reply");
+                    assertThat(c.getUnreadCount()).isEqualTo(2);
+                });
+
+        messageService.getConversation(doctor.getId(), patient.getId());
+        assertThat(messageService.getUnreadCount(doctor.getId())).isZero();
+        assertThat(messageService.getUnreadCount(patient.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void recordListsJoinDoctorNameInTheSameStatement() {
+        User doctor = persistUser("Dr. Iyer", Role.DOCTOR);
+        User patient = persistUser("Patient C", Role.PATIENT);
+        persistAccess(patient, doctor);
+        for (int i = 0; i < 25; i++) {
+            PatientRecord record = new PatientRecord();
+            record.setPatientId(patient.getId());
+            record.setCreatedByDoctor(doctor);
+            record.setType(RecordType.NOTE);
+            record.setTitle("Visit " + i);
+            record.setContent("Notes " + i);
+            record.setDiagnosis("Routine");
+            entityManager.persist(record);
+        }
+
+        long smallPage = countStatements(() -> recordService.getMyRecords(patient.getId(), "PATIENT", 0, 3));
+        long largePage = countStatements(() -> {
+            PaginatedRecordResponse page = recordService.getMyRecords(patient.getId(), "PATIENT", 0, 20);
+            assertThat(page.getRecords()).hasSize(20);
+            assertThat(page.getRecords()).allSatisfy(r -> assertThat(r.getCreatedByDoctorName()).isEqualTo("Dr. Iyer"));
+        });
+        // one projection query plus the count
+        assertThat(largePage).isEqualTo(smallPage).isEqualTo(2);
+
+        PaginatedRecordResponse first = recordService.getMyRecords(patient.getId(), "PATIENT", 0, 20, null, "", null, true, false);
+        PaginatedRecordResponse second = recordService.getMyRecords(patient.getId(), "PATIENT", 0, 20, null, first.getNextCursor(), null, true, false);
+        assertThat(first.getTotalElements()).isNull();
+        assertThat(first.getRecords()).allSatisfy(r -> assertThat(r.getContent()).isNull());
+        assertThat(second.getRecords()).hasSize(5);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void inlineAttachmentsAreLoadedForThePageInOneQuery() {
+        User doctor = persistUser("Dr. Menon", Role.DOCTOR);
+        User patient = persistUser("Patient D", Role.PATIENT);
+        for (int i = 0; i < 20; i++) {
+            PatientRecord record = new PatientRecord();
+            record.setPatientId(patient.getId());
+            record.setCreatedByDoctor(doctor);
+            record.setType(RecordType.IMAGING);
+            record.setTitle("Scan " + i);
+            record.setContent("Scan " + i);
+            record.setDiagnosis("Routine");
+            entityManager.persist(record);
+            for (int j = 0; j < i % 3; j++) {
+                RecordAttachment attachment = new RecordAttachment();
+                attachment.setRecord(record);
+                attachment.setFileName("scan-" + i + "-" + j + ".png");
+                attachment.setBlobUrl("patient-" + patient.getId() + "/scan-" + i + "-" + j + ".png");
+                attachment.setFileType("image/png");
+                attachment.setFileSize(10L);
+                entityManager.persist(attachment);
+            }
+        }
+
+        long smallPage = countStatements(() -> recordService.getMyRecords(
+                patient.getId(), "PATIENT", 0, 3, null, "", false, true, true));
+        long largePage = countStatements(() -> {
+            PaginatedRecordResponse page = recordService.getMyRecords(
+                    patient.getId(), "PATIENT", 0, 20, null, "", false, true, true);
+            assertThat(page.getRecords()).allSatisfy(r -> assertThat(r.getAttachments())
+                    .hasSize(Integer.parseInt(r.getTitle().substring("Scan ".length())) % 3));
+        });
+        // one projection query plus the attachment IN query
+        assertThat(largePage).isEqualTo(smallPage).isEqualTo(2);
+
+        PaginatedRecordResponse without = recordService.getMyRecords(
+                patient.getId(), "PATIENT", 0, 20, null, "", false, true, false);
+        assertThat(without.getRecords()).allSatisfy(r -> assertThat(r.getAttachments()).isNull());
+    }
+
+    @Test
+    void identityCacheServesRepeatLookupsUntilEvicted() {
+        User doctor = persistUser("Dr. Kapoor", Role.DOCTOR);
+        User patient = persistUser("Patient E", Role.PATIENT);
+        List<Long> ids = List.of(doctor.getId(), patient.getId());
+
+        long cold = countStatements(() -> assertThat(userIdentityCache.getAll(ids)).hasSize(2));
+        long hits = userIdentityCache.getHits();
+        statistics.clear();
+        assertThat(userIdentityCache.getAll(ids).get(doctor.getId()).name()).isEqualTo("Dr. Kapoor");
+        assertThat(cold).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        User renamed = entityManager.find(User.class, doctor.getId());
+        renamed.setName("Dr. A. Kapoor");
+        entityManager.flush();
+        userIdentityCache.evict(doctor.getId());
+        assertThat(userIdentityCache.get(doctor.getId()).name()).isEqualTo("Dr. A. Kapoor");
+        assertThat(userIdentityCache.getHits() - hits).isEqualTo(2);
+    }
+
+    private long countStatements(Runnable action) {
+        // Start from an empty persistence context so findById cannot be served from it
+        entityManager.flush();
+        entityManager.clear();
+        userIdentityCache.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void grantFromNewPatients(User doctor, int count, boolean withMessage) {
+        for (int i = 0; i < count; i++) {
+            User patient = persistUser(doctor.getName() + " patient " + i, Role.PATIENT);
+            persistAccess(patient, doctor);
+            if (withMessage) {
+                messageService.sendMessage(patient.getId(), doctor.getId(), "Hello doctor " + i);
+            }
+        }
+    }
+
+    private void grantToNewDoctors(User patient, int count) {
+        for (int i = 0; i < count; i++) {
+            User doctor = persistUser(patient.getName() + " doctor " + i, Role.DOCTOR);
+            persistAccess(patient, doctor);
+        }
+    }
+
+    private void persistAccess(User patient, User doctor) {
+        Access access = new Access();
+        access.setPatientId(patient.getId());
+        access.setDoctorId(doctor.getId());
+        access.setExpiresAt(Instant.now().plus(30, ChronoUnit.DAYS));
+        entityManager.persist(access);
+    }
+
+    private User persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+        user.setPassword("hash");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,85 @@
+package com.digiarogya.backend.benchmark;
+
+import com.digiarogya.backend.dto.AuditLogResponse;
+import com.digiarogya.backend.dto.MessageResponse;
+import com.digiarogya.backend.dto.PatientRecordResponse;
+import com.digiarogya.backend.entity.AuditLog;
+import com.digiarogya.backend.entity.Message;
+import com.digiarogya.backend.entity.PatientRecord;
+import com.digiarogya.backend.entity.RecordType;
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mappings used by the record, message and audit endpoints
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private PatientRecord record;
+    private Message message;
+    private AuditLog auditLog;
+
+    @Setup
+    public void setUp() {
+        User doctor = new User();
+        doctor.setId(7L);
+        doctor.setName("Dr. Rao");
+        doctor.setRole(Role.DOCTOR);
+
+        record = new PatientRecord();
+        record.setPatientId(11L);
+        record.setCreatedByDoctor(doctor);
+        record.setType(RecordType.LAB_RESULT);
+        record.setTitle("Complete blood count");
+        record.setContent("Haemoglobin 13.5 g/dL, WBC 6.2 x10^9/L, platelets 250 x10^9/L");
+        record.setDiagnosis("Within normal limits");
+
+        message = new Message(11L, 7L, "Could you check my latest results before Friday?");
+        message.setId(501L);
+
+        auditLog = new AuditLog();
+        auditLog.setId(9001L);
+        auditLog.setPatientId(11L);
+        auditLog.setPatientName("Asha Patel");
+        auditLog.setActorId(7L);
+        auditLog.setActorName("Dr. Rao");
+        auditLog.setActorRole("DOCTOR");
+        auditLog.setAction("RECORD_VIEWED");
+        auditLog.setDetails("Doctor viewed patient records");
+        auditLog.setCreatedAt(Instant.now());
+    }
+
+    @Benchmark
+    public PatientRecordResponse patientRecord() {
+        return PatientRecordResponse.from(record);
+    }
+
+    @Benchmark
+    public MessageResponse message() {
+        return MessageResponse.from(message, "Asha Patel", "Dr. Rao");
+    }
+
+    @Benchmark
+    public AuditLogResponse auditLog() {
+        return AuditLogResponse.from(auditLog);
+    }
+}
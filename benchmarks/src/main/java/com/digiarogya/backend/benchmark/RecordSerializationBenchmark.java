@@ -0,0 +1,79 @@
+package com.digiarogya.backend.benchmark;
+
+import com.digiarogya.backend.dto.FileUploadResponse;
+import com.digiarogya.backend.dto.PaginatedRecordResponse;
+import com.digiarogya.backend.dto.PatientRecordResponse;
+import com.digiarogya.backend.entity.PreviewStatus;
+import com.digiarogya.backend.entity.RecordType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of one page of records, as the records endpoints
+ * return it: full, summary (no content), and with inline attachments.
+ * The mapper is built with Spring's defaults, as the web layer's is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"full", "summary", "attachments"})
+    public String shape;
+
+    private ObjectMapper objectMapper;
+    private PaginatedRecordResponse page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Instant now = Instant.now();
+        List<PatientRecordResponse> records = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String content = "summary".equals(shape) ? null
+                    : "Follow-up visit " + i + ". Blood pressure 128/82, pulse 74. Continue current medication.";
+            PatientRecordResponse record = new PatientRecordResponse((long) i, RecordType.values()[i % RecordType.values().length],
+                    "Visit " + i, content, "Stable", now.minus(i, ChronoUnit.HOURS), 7L, "Dr. Rao");
+            if ("attachments".equals(shape)) {
+                FileUploadResponse attachment = new FileUploadResponse((long) i, "scan-" + i + ".png",
+                        "patient-11/record-" + i + "/scan.png", "image/png", 182_044L);
+                attachment.setPreviewStatus(PreviewStatus.READY);
+                attachment.setPreviewUrl("patient-11/record-" + i + "/scan.preview.jpg");
+                record.setAttachments(List.of(attachment));
+            }
+            records.add(record);
+        }
+        page = new PaginatedRecordResponse(records, 0, 5, 100L, pageSize, true, false,
+                "MTcwMDAwMDAwMDAwMDo0Mg");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,77 @@
+package com.digiarogya.backend.security;
+
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and checking a bearer token. parserPerCall is the old
+ * verification path (a parser built for every call) and stays as the
+ * baseline for sharedParser and cachedClaims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private User user;
+    private String token;
+    private TokenClaimsCache cache;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setId(42L);
+        user.setRole(Role.DOCTOR);
+        token = JwtUtil.generateToken(user);
+
+        cache = new TokenClaimsCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 10000);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return JwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return JwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parserBuilder()
+                .setSigningKey(JwtUtil.SECRET_KEY)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public TokenClaims sharedParser() {
+        return JwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public TokenClaims cachedClaims() {
+        return cache.verify(token);
+    }
+}
@@ -0,0 +1,70 @@
+package com.digiarogya.backend.security;
+
+import com.digiarogya.backend.entity.Role;
+import com.digiarogya.backend.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtFilter end to end on mock servlet objects: header parsing, claims
+ * lookup, request attributes and the timer, for an accepted token (cache
+ * warm, as for any client after its first request) and a rejected one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private JwtFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        TokenClaimsCache cache = new TokenClaimsCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 10000);
+        filter = new JwtFilter(cache, new SimpleMeterRegistry());
+
+        User user = new User();
+        user.setId(42L);
+        user.setRole(Role.PATIENT);
+        authorization = "Bearer " + JwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse validToken() throws ServletException, IOException {
+        return filter(authorization);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tamperedToken() throws ServletException, IOException {
+        return filter(authorization + "x");
+    }
+
+    private MockHttpServletResponse filter(String header) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/records/my");
+        request.addHeader("Authorization", header);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,160 @@
+package com.digiarogya.backend.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of concurrent requests that each make the blob calls an upload
+ * makes (existence check, upload, and a delete as the cleanup job would),
+ * through the real AzureBlobService against a local stand-in for Azure that
+ * answers every call after a fixed delay. Request handlers run either on a
+ * pool of 200 platform threads, Tomcat's default, or one virtual thread
+ * each, as with spring.threads.virtual.enabled=true.
+ *
+ * With platform threads the burst takes about requests / 200 round trips
+ * of latency, whatever the delay; with virtual threads the limit becomes
+ * the HTTP client's connection pool (azure.storage.max-connections).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+// The JDK server otherwise closes idle keep-alive connections beyond 200, which the client then trips over
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.maxIdleConnections=4096")
+public class SlowBlobStorageBenchmark {
+
+    // Azurite's published development account; the stand-in does not check signatures
+    private static final String ACCOUNT = "devstoreaccount1";
+    private static final String ACCOUNT_KEY =
+            "Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==";
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final byte[] CONTENT = new byte[4096];
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    /** Delay before the stand-in answers each call */
+    @Param({"100", "500"})
+    public int latencyMs;
+
+    @Param({"400"})
+    public int requests;
+
+    /** azure.storage.max-connections */
+    @Param({"500"})
+    public int maxConnections;
+
+    private HttpServer slowAzure;
+    private AzureBlobService blobStore;
+    private ExecutorService handlers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        slowAzure = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        slowAzure.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        slowAzure.createContext("/", this::answerSlowly);
+        slowAzure.start();
+
+        blobStore = new AzureBlobService();
+        ReflectionTestUtils.setField(blobStore, "connectionString", "DefaultEndpointsProtocol=http;AccountName="
+                + ACCOUNT + ";AccountKey=" + ACCOUNT_KEY + ";BlobEndpoint=http://127.0.0.1:"
+                + slowAzure.getAddress().getPort() + "/" + ACCOUNT + ";");
+        ReflectionTestUtils.setField(blobStore, "containerName", "medical-records");
+        ReflectionTestUtils.setField(blobStore, "maxConnections", maxConnections);
+        blobStore.init();
+
+        handlers = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handlers.shutdownNow();
+        slowAzure.stop(0);
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<?>> inFlight = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            inFlight.add(handlers.submit(this::handleUpload));
+        }
+        for (Future<?> request : inFlight) {
+            request.get();
+        }
+        return inFlight.size();
+    }
+
+    private Void handleUpload() throws IOException {
+        String blobName = "patient-1/record-1/" + UUID.randomUUID() + ".pdf";
+        blobStore.describe(blobName);
+        String blobUrl = blobStore.upload(blobName, new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+        blobStore.deleteFile(blobUrl);
+        return null;
+    }
+
+    // Just enough of the Blob REST API for the calls above: HEAD is a missing blob, PUT and DELETE succeed
+    private void answerSlowly(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            var headers = exchange.getResponseHeaders();
+            headers.set("Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            headers.set("x-ms-request-id", UUID.randomUUID().toString());
+            headers.set("x-ms-version", "2023-11-03");
+            headers.set("ETag", "\"0x8DC0000000000000\"");
+            headers.set("Last-Modified", headers.getFirst("Date"));
+
+            String query = exchange.getRequestURI().getQuery();
+            boolean container = query != null && query.contains("restype=container");
+            switch (exchange.getRequestMethod()) {
+                case "HEAD" -> {
+                    headers.set("x-ms-error-code", "BlobNotFound");
+                    exchange.sendResponseHeaders(404, -1);
+                }
+                case "GET" -> exchange.sendResponseHeaders(container ? 200 : 404, -1);
+                case "PUT" -> {
+                    headers.set("x-ms-request-server-encrypted", "true");
+                    exchange.sendResponseHeaders(201, -1);
+                }
+                case "DELETE" -> exchange.sendResponseHeaders(202, -1);
+                default -> exchange.sendResponseHeaders(400, -1);
+            }
+        }
+    }
+}
@@ -17,14 +17,16 @@ const RecordDetailModal = ({ record, isOpen, onClose }) => {
   const fetchAttachments = async () => {
     setLoadingAttachments(true);
     try {
-      const data = await fileApi.getRecordAttachments(record.id);
+      // Record lists normally carry attachment summaries; only fetch when they don't
+      const data = record.attachments ?? await fileApi.getRecordAttachments(record.id);
       setAttachments(data || []);
       
-      // Load thumbnails for images
+      // Load thumbnails for images, preferring the small server-rendered preview
       data?.forEach(async (attachment) => {
         if (attachment.fileType?.startsWith('image/')) {
           try {
-            const { downloadUrl } = await fileApi.getDownloadUrl(attachment.id);
+            const variant = attachment.previewStatus === 'READY' ? 'preview' : 'original';
+            const { downloadUrl } = await fileApi.getDownloadUrl(attachment.id, variant);
             setThumbnails((prev) => ({
               ...prev,
               [attachment.id]: downloadUrl,
@@ -2,18 +2,23 @@ import { useState, useEffect, useRef } from 'react';
 import { messageApi } from '../../services/messageService';
 import authService from '../../services/authService';
 
+const PAGE_SIZE = 50;
+
 const Messages = () => {
   const user = authService.getUser();
   const [contacts, setContacts] = useState([]);
   const [conversations, setConversations] = useState([]);
   const [selectedContact, setSelectedContact] = useState(null);
   const [messages, setMessages] = useState([]);
+  const [hasOlder, setHasOlder] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const [newMessage, setNewMessage] = useState('');
   const [loading, setLoading] = useState(true);
   const [sendingMessage, setSendingMessage] = useState(false);
   const [error, setError] = useState(null);
   const messagesEndRef = useRef(null);
-  const pollIntervalRef = useRef(null);
+  const selectedContactRef = useRef(null);
+  const messagesRef = useRef([]);
 
   // Scroll to bottom of messages
   const scrollToBottom = () => {
@@ -23,37 +28,62 @@ const Messages = () => {
   // Load contacts and conversations
   useEffect(() => {
     loadContactsAndConversations();
-    return () => {
-      if (pollIntervalRef.current) {
-        clearInterval(pollIntervalRef.current);
-      }
-    };
   }, []);
 
-  // Scroll to bottom when messages change
+  // Scroll to bottom when a newer message arrives (not when earlier ones are prepended)
+  const lastMessageId = messages.length > 0 ? messages[messages.length - 1].id : null;
   useEffect(() => {
     scrollToBottom();
-  }, [messages]);
+  }, [lastMessageId]);
 
-  // Poll for new messages when a conversation is selected
+  // Receive new messages over the push stream instead of polling
   useEffect(() => {
-    if (pollIntervalRef.current) {
-      clearInterval(pollIntervalRef.current);
-    }
+    const unsubscribe = messageApi.subscribe((eventName, data) => {
+      if (eventName !== 'message') return;
 
-    if (selectedContact) {
-      pollIntervalRef.current = setInterval(() => {
-        loadMessages(selectedContact.otherUserId, true);
-      }, 5000); // Poll every 5 seconds
-    }
+      const otherUserId = data.senderId === user?.userId ? data.receiverId : data.senderId;
+      const isIncoming = data.senderId === otherUserId;
+      const isOpen = selectedContactRef.current?.otherUserId === otherUserId;
 
-    return () => {
-      if (pollIntervalRef.current) {
-        clearInterval(pollIntervalRef.current);
+      if (isOpen) {
+        if (isIncoming) {
+          // Fetch only what is newer than the last shown message; this also marks it read
+          loadNewerMessages(otherUserId);
+        } else {
+          appendMessages([data]);
+        }
       }
-    };
+
+      setContacts(prev => prev.map(c =>
+        c.otherUserId === otherUserId
+          ? {
+              ...c,
+              lastMessage: data.content,
+              lastMessageAt: data.sentAt,
+              unreadCount: isIncoming && !isOpen ? (c.unreadCount || 0) + 1 : c.unreadCount,
+            }
+          : c
+      ));
+    });
+
+    return unsubscribe;
+  }, []);
+
+  useEffect(() => {
+    selectedContactRef.current = selectedContact;
   }, [selectedContact]);
 
+  useEffect(() => {
+    messagesRef.current = messages;
+  }, [messages]);
+
+  const appendMessages = (newMessages) => {
+    setMessages(prev => {
+      const known = new Set(prev.map(m => m.id));
+      return [...prev, ...newMessages.filter(m => !known.has(m.id))];
+    });
+  };
+
   const loadContactsAndConversations = async () => {
     try {
       setLoading(true);
@@ -95,8 +125,9 @@ const Messages = () => {
   const loadMessages = async (otherUserId, silent = false) => {
     try {
       if (!silent) setLoading(true);
-      const messagesData = await messageApi.getConversation(otherUserId);
+      const messagesData = await messageApi.getConversation(otherUserId, { limit: PAGE_SIZE });
       setMessages(messagesData);
+      setHasOlder(messagesData.length === PAGE_SIZE);
       
       // Update unread count for this contact
       setContacts(prev => prev.map(c => 
@@ -110,9 +141,39 @@ const Messages = () => {
     }
   };
 
+  const loadNewerMessages = async (otherUserId) => {
+    try {
+      const current = messagesRef.current;
+      const lastId = current.length > 0 ? current[current.length - 1].id : null;
+      const newer = await messageApi.getConversation(otherUserId, { after: lastId, limit: PAGE_SIZE });
+      appendMessages(newer);
+    } catch (err) {
+      console.error(err);
+    }
+  };
+
+  const loadOlderMessages = async () => {
+    if (!selectedContact || messages.length === 0 || loadingOlder) return;
+    try {
+      setLoadingOlder(true);
+      const older = await messageApi.getConversation(selectedContact.otherUserId, {
+        before: messages[0].id,
+        limit: PAGE_SIZE,
+      });
+      setMessages(prev => [...older, ...prev]);
+      setHasOlder(older.length === PAGE_SIZE);
+    } catch (err) {
+      setError('Failed to load earlier messages');
+      console.error(err);
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   const handleSelectContact = (contact) => {
     setSelectedContact(contact);
     setMessages([]);
+    setHasOlder(false);
     loadMessages(contact.otherUserId);
   };
 
@@ -279,6 +340,17 @@ const Messages = () => {
 
                 {/* Messages */}
                 <div className="flex-1 overflow-y-auto p-4 space-y-4 bg-gray-50">
+                  {hasOlder && (
+                    <div className="text-center">
+                      <button
+                        onClick={loadOlderMessages}
+                        disabled={loadingOlder}
+                        className="text-sm text-emerald-600 hover:underline disabled:text-gray-400"
+                      >
+                        {loadingOlder ? 'Loading...' : 'Load earlier messages'}
+                      </button>
+                    </div>
+                  )}
                   {messages.length === 0 ? (
                     <div className="flex items-center justify-center h-full text-gray-500">
                       <div className="text-center">
@@ -42,7 +42,7 @@ async function getErrorMessage(response) {
 export const recordsApi = {
   // Get patient's own records (paginated)
   getMyRecords: async (page = 0, size = 10, type = null) => {
-    let url = `/records/me?page=${page}&size=${size}`;
+    let url = `/records/me?page=${page}&size=${size}&includeAttachments=true`;
     if (type && type !== 'ALL') {
       url += `&type=${type}`;
     }
@@ -111,7 +111,7 @@ export const doctorApi = {
 
   // Get patient records (doctor viewing patient's records)
   getPatientRecords: async (patientId, page = 0, size = 10) => {
-    const response = await fetchWithAuth(`/records/${patientId}?page=${page}&size=${size}`);
+    const response = await fetchWithAuth(`/records/${patientId}?page=${page}&size=${size}&includeAttachments=true`);
     if (!response.ok) {
       const error = await getErrorMessage(response);
       throw new Error(error || 'Failed to fetch patient records');
@@ -204,8 +204,9 @@ export const fileApi = {
   },
 
   // Get download URL for a file
-  getDownloadUrl: async (attachmentId) => {
-    const response = await fetchWithAuth(`/files/download/${attachmentId}`);
+  // variant: 'original' (default) or 'preview' for the downscaled JPEG
+  getDownloadUrl: async (attachmentId, variant = 'original') => {
+    const response = await fetchWithAuth(`/files/download/${attachmentId}?variant=${variant}`);
     if (!response.ok) {
       throw new Error('Failed to get download URL');
     }
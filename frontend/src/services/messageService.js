@@ -48,9 +48,14 @@ export const messageApi = {
     return response.json();
   },
 
-  // Get messages in a specific conversation
-  getConversation: async (otherUserId) => {
-    const response = await fetchWithAuth(`/messages/conversation/${otherUserId}`);
+  // Get messages in a specific conversation (latest page, or older/newer than a message id)
+  getConversation: async (otherUserId, { before, after, limit } = {}) => {
+    const params = new URLSearchParams();
+    if (before) params.set('before', before);
+    if (after) params.set('after', after);
+    if (limit) params.set('limit', limit);
+    const query = params.toString() ? `?${params}` : '';
+    const response = await fetchWithAuth(`/messages/conversation/${otherUserId}${query}`);
     if (!response.ok) {
       const error = await getErrorMessage(response);
       throw new Error(error || 'Failed to fetch messages');
@@ -88,6 +93,63 @@ export const messageApi = {
     }
     return response.json();
   },
+
+  // Subscribe to pushed messages and unread-count changes (server-sent events).
+  // Uses fetch instead of EventSource so the Authorization header can be sent.
+  // Reconnects with backoff; returns a function that closes the stream.
+  subscribe: (onEvent) => {
+    const controller = new AbortController();
+    let retryDelay = 1000;
+
+    const connect = async () => {
+      while (!controller.signal.aborted) {
+        try {
+          const response = await fetchWithAuth('/messages/stream', {
+            headers: { Accept: 'text/event-stream' },
+            signal: controller.signal,
+          });
+          if (!response.ok || !response.body) {
+            throw new Error('Failed to open message stream');
+          }
+          retryDelay = 1000;
+
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffer = '';
+          for (;;) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += value;
+
+            // Events are separated by a blank line
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) !== -1) {
+              const rawEvent = buffer.slice(0, boundary);
+              buffer = buffer.slice(boundary + 2);
+
+              let name = 'message';
+              const data = [];
+              for (const line of rawEvent.split('\n')) {
+                if (line.startsWith('event:')) name = line.slice(6).trim();
+                else if (line.startsWith('data:')) data.push(line.slice(5));
+              }
+              if (data.length > 0) {
+                onEvent(name, JSON.parse(data.join('\n')));
+              }
+            }
+          }
+        } catch (err) {
+          if (controller.signal.aborted) return;
+          console.error(err);
+        }
+
+        await new Promise(resolve => setTimeout(resolve, retryDelay));
+        retryDelay = Math.min(retryDelay * 2, 30000);
+      }
+    };
+
+    connect();
+    return () => controller.abort();
+  },
 };
 
 export default messageApi;
@@ -0,0 +1,140 @@
+package com.digiarogya.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Thin JSON client for the REST API. Each call is timed under its label
+ * (method plus path template, so /api/records/{patientId} is one operation
+ * however many patients are hit); non-2xx answers count as errors and throw
+ * {@link ApiException}.
+ */
+class ApiClient {
+
+    static class ApiException extends RuntimeException {
+        final int status;
+        final String retryAfter;
+
+        ApiException(String label, int status, String retryAfter) {
+            super(label + " answered " + status);
+            this.status = status;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Duration timeout;
+    private final LatencyStats stats;
+
+    ApiClient(String baseUrl, Duration timeout, LatencyStats stats) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.stats = stats;
+    }
+
+    JsonNode get(String label, String path, String token) {
+        return send(label, request(path, token).GET().build());
+    }
+
+    JsonNode post(String label, String path, String token, Object body) {
+        try {
+            return send(label, request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot serialize request body", e);
+        }
+    }
+
+    /** Multipart upload of a single part named "files", as the frontend sends it */
+    JsonNode upload(String label, String path, String token, String fileName, String contentType, byte[] content) {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return send(label, request(path, token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+    }
+
+    /**
+     * Log in, waiting out 429s (the server throttles logins per client IP,
+     * and the driver logs everyone in from one address)
+     */
+    JsonNode login(String email, String password) throws InterruptedException {
+        while (true) {
+            try {
+                return post("POST /api/users/login", "/api/users/login", null,
+                        Map.of("email", email, "password", password));
+            } catch (ApiException e) {
+                if (e.status != 429) {
+                    throw e;
+                }
+                long seconds = e.retryAfter != null ? Long.parseLong(e.retryAfter) : 1;
+                Thread.sleep(Duration.ofSeconds(Math.max(1, seconds)));
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private JsonNode send(String label, HttpRequest request) {
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            stats.recordError(label);
+            throw new ApiException(label, -1, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(label, -1, null);
+        }
+
+        if (response.statusCode() / 100 != 2) {
+            stats.recordError(label);
+            throw new ApiException(label, response.statusCode(),
+                    response.headers().firstValue("Retry-After").orElse(null));
+        }
+        stats.record(label, started);
+
+        try {
+            byte[] body = response.body();
+            return body.length == 0 ? mapper.nullNode() : mapper.readTree(body);
+        } catch (IOException e) {
+            stats.recordError(label);
+            throw new ApiException(label, response.statusCode(), null);
+        }
+    }
+}
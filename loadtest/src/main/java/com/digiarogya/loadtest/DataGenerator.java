@@ -0,0 +1,419 @@
+package com.digiarogya.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bulk-loads a production-sized data set into an existing DigiArogya
+ * database: doctors and patients, access grants (a Zipf spread, so most
+ * doctors have a few hundred patients and a few hubs have thousands),
+ * patient records, message threads with heavy-tailed lengths plus their
+ * conversation rows, and the audit trail the app would have written along
+ * the way.
+ *
+ * The schema must already exist (start the backend once against the
+ * database). Ids continue from each table's current maximum and the identity
+ * sequences are moved past them at the end, so the app keeps working on top
+ * of the generated rows. The same options and seed give the same data,
+ * apart from timestamps, which are anchored to the time of the run.
+ *
+ * Accounts are doctor{n}@{domain} and patient{n}@{domain}, all with the
+ * same password, which is what {@link LoadDriver} logs in with.
+ */
+public final class DataGenerator {
+
+    private static final String USAGE = """
+            Usage: java -cp loadtest.jar com.digiarogya.loadtest.DataGenerator [--name=value ...]
+            Loads synthetic users, access grants, records, messages and audit rows. Options:""";
+
+    private static final String[] TABLES = {"users", "access", "patient_records", "messages", "conversations", "audit_log"};
+
+    private record MessageThread(int patient, int doctor, int length) {}
+
+    private record ConversationRow(long lowUserId, long highUserId, long lastMessageId, String lastMessage,
+                                   Instant lastMessageAt, long lowUnread, long highUnread) {}
+
+    private final Distributions distributions;
+    private final SyntheticText text;
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private final int doctors;
+    private final int patients;
+    private final long historySeconds;
+    private final String domain;
+    private final String password;
+    private final int bcryptStrength;
+    private final double doctorsPerPatient;
+    private final double doctorSkew;
+    private final double expiredShare;
+    private final double recordsPerPatient;
+    private final long messageCount;
+    private final double threadShare;
+    private final int maxThreadLength;
+    private final long auditRows;
+
+    private long userBase;
+    private String[] names;
+    // Doctor indices each patient has granted access to, active or expired
+    private int[][] grants;
+
+    private DataGenerator(Options options) {
+        this.distributions = new Distributions(options.longValue("seed", 42));
+        this.text = new SyntheticText(distributions);
+        this.doctors = options.integer("doctors", 400);
+        this.patients = options.integer("patients", 100_000);
+        this.historySeconds = Duration.ofDays(options.integer("history-days", 3 * 365)).toSeconds();
+        this.domain = options.string("domain", "load.test");
+        this.password = options.string("password", "LoadTest123!");
+        this.bcryptStrength = options.integer("bcrypt-strength", 10);
+        this.doctorsPerPatient = options.decimal("doctors-per-patient", 1.5);
+        this.doctorSkew = options.decimal("doctor-skew", 0.4);
+        this.expiredShare = options.decimal("expired-share", 0.15);
+        this.recordsPerPatient = options.decimal("records-per-patient", 20);
+        this.messageCount = options.longValue("messages", 2_000_000);
+        this.threadShare = options.decimal("thread-share", 0.3);
+        this.maxThreadLength = options.integer("max-thread-length", 20_000);
+        this.auditRows = options.longValue("audit-rows", 3_000_000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        String url = options.string("jdbc-url", "jdbc:postgresql://localhost:5432/digiarogya");
+        String user = options.string("db-user", "postgres");
+        String dbPassword = options.string("db-password", System.getenv().getOrDefault("PGPASSWORD", ""));
+
+        DataGenerator generator = new DataGenerator(options);
+        if (!options.check(USAGE)) {
+            return;
+        }
+
+        // Audit rows are written alongside the other tables, so they get their own connection
+        try (Connection connection = DriverManager.getConnection(url, user, dbPassword);
+             Connection auditConnection = DriverManager.getConnection(url, user, dbPassword)) {
+            generator.run(connection, auditConnection);
+        }
+    }
+
+    private void run(Connection connection, Connection auditConnection) throws SQLException {
+        checkSchema(connection);
+        long started = System.nanoTime();
+
+        userBase = maxId(connection, "users");
+        loadUsers(connection);
+
+        try (CopyWriter audit = new CopyWriter(auditConnection, "audit_log",
+                "id", "patient_id", "patient_name", "actor_id", "actor_name", "actor_role",
+                "action", "record_id", "record_title", "details", "target_doctor_id", "created_at")) {
+            long auditBase = maxId(connection, "audit_log");
+            long[] auditId = {auditBase};
+
+            loadAccess(connection, audit, auditId);
+            loadRecords(connection, audit, auditId);
+            loadMessages(connection);
+            loadRecordViews(audit, auditId);
+            report("audit_log", audit.getRows(), started);
+        }
+
+        finish(connection);
+        System.out.printf("Done in %ds%n", Duration.ofNanos(System.nanoTime() - started).toSeconds());
+    }
+
+    private void checkSchema(Connection connection) throws SQLException {
+        try (PreparedStatement exists = connection.prepareStatement("SELECT to_regclass(?)")) {
+            for (String table : TABLES) {
+                exists.setString(1, table);
+                try (ResultSet result = exists.executeQuery()) {
+                    result.next();
+                    if (result.getString(1) == null) {
+                        throw new IllegalStateException("Table " + table + " does not exist; start the backend "
+                                + "once against this database so the schema is created");
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement loaded = connection.prepareStatement("SELECT 1 FROM users WHERE email = ?")) {
+            loaded.setString(1, email("doctor", 0, domain));
+            try (ResultSet result = loaded.executeQuery()) {
+                if (result.next()) {
+                    throw new IllegalStateException("Accounts @" + domain + " are already loaded; "
+                            + "use a fresh database or another --domain");
+                }
+            }
+        }
+    }
+
+    private void loadUsers(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        String hash = new BCryptPasswordEncoder(bcryptStrength).encode(password);
+
+        names = new String[doctors + patients];
+        try (CopyWriter users = new CopyWriter(connection, "users", "id", "name", "email", "password", "role")) {
+            for (int i = 0; i < doctors + patients; i++) {
+                boolean doctor = i < doctors;
+                names[i] = doctor ? "Dr. " + text.name() : text.name();
+                users.add(userBase + 1 + i)
+                        .add(names[i])
+                        .add(doctor ? email("doctor", i, domain) : email("patient", i - doctors, domain))
+                        .add(hash)
+                        .add(doctor ? "DOCTOR" : "PATIENT")
+                        .endRow();
+            }
+            report("users", users.getRows(), started);
+        }
+    }
+
+    private void loadAccess(Connection connection, CopyWriter audit, long[] auditId) throws SQLException {
+        long started = System.nanoTime();
+        Distributions.Zipf doctorPicker = distributions.zipf(doctors, doctorSkew);
+
+        grants = new int[patients][];
+        long id = maxId(connection, "access");
+        try (CopyWriter access = new CopyWriter(connection, "access", "id", "patient_id", "doctor_id", "expires_at")) {
+            for (int p = 0; p < patients; p++) {
+                int[] chosen = distinctDoctors(Math.min(doctors, distributions.geometric(doctorsPerPatient)), doctorPicker);
+                grants[p] = chosen;
+
+                for (int k = 0; k < chosen.length; k++) {
+                    boolean active = !distributions.chance(expiredShare);
+                    Instant expiresAt = active
+                            ? now.plus(Duration.ofHours(1 + distributions.uniform(30 * 24)))
+                            : now.minus(Duration.ofHours(1 + distributions.uniform(90 * 24)));
+                    access.add(++id).add(patientId(p)).add(doctorId(chosen[k])).add(expiresAt).endRow();
+
+                    // Grants in the app run for up to 30 days, so this is roughly when it was made
+                    Instant grantedAt = min(now, expiresAt.minus(Duration.ofDays(30)));
+                    audit.add(++auditId[0]).add(patientId(p)).add(names[doctors + p])
+                            .add(patientId(p)).add(names[doctors + p]).add("PATIENT")
+                            .add("ACCESS_GRANTED").add((String) null).add((String) null)
+                            .add("Granted access to " + names[chosen[k]]).add(doctorId(chosen[k]))
+                            .add(grantedAt)
+                            .endRow();
+                }
+            }
+            report("access", access.getRows(), started);
+        }
+    }
+
+    private int[] distinctDoctors(int count, Distributions.Zipf doctorPicker) {
+        int[] chosen = new int[count];
+        int found = 0;
+        while (found < count) {
+            int doctor = doctorPicker.next();
+            boolean duplicate = false;
+            for (int k = 0; k < found; k++) {
+                duplicate |= chosen[k] == doctor;
+            }
+            if (!duplicate) {
+                chosen[found++] = doctor;
+            }
+        }
+        return chosen;
+    }
+
+    private void loadRecords(Connection connection, CopyWriter audit, long[] auditId) throws SQLException {
+        long started = System.nanoTime();
+        long id = maxId(connection, "patient_records");
+        try (CopyWriter records = new CopyWriter(connection, "patient_records",
+                "id", "patient_id", "created_by_doctor_id", "type", "title", "content", "diagnosis", "created_at")) {
+            for (int p = 0; p < patients; p++) {
+                // Ascending times, so id order matches the (createdAt, id) order the app pages by
+                long[] offsets = sortedOffsets(distributions.geometric(recordsPerPatient), historySeconds);
+                for (long offset : offsets) {
+                    int doctor = grants[p][distributions.uniform(grants[p].length)];
+                    int type = text.recordType();
+                    String title = text.title(type);
+                    Instant createdAt = now.minusSeconds(historySeconds - offset);
+
+                    records.add(++id).add(patientId(p)).add(doctorId(doctor))
+                            .add(SyntheticText.RECORD_TYPES[type]).add(title)
+                            .add(text.recordContent()).add(text.diagnosis()).add(createdAt)
+                            .endRow();
+
+                    audit.add(++auditId[0]).add(patientId(p)).add(names[doctors + p])
+                            .add(doctorId(doctor)).add(names[doctor]).add("DOCTOR")
+                            .add("RECORD_ADDED").add(id).add(title)
+                            .add("Added new " + SyntheticText.RECORD_TYPES[type] + " record")
+                            .addNullable(null).add(createdAt)
+                            .endRow();
+                }
+            }
+            report("patient_records", records.getRows(), started);
+        }
+    }
+
+    private void loadMessages(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        List<MessageThread> threads = planThreads();
+        List<ConversationRow> conversations = new ArrayList<>(threads.size());
+        long messageHistory = Duration.ofDays(365).toSeconds();
+
+        long id = maxId(connection, "messages");
+        try (CopyWriter messages = new CopyWriter(connection, "messages",
+                "id", "sender_id", "receiver_id", "low_user_id", "high_user_id", "content", "sent_at", "is_read")) {
+            for (MessageThread thread : threads) {
+                long patientId = patientId(thread.patient());
+                long doctorId = doctorId(thread.doctor());
+                long low = Math.min(patientId, doctorId);
+                long high = Math.max(patientId, doctorId);
+
+                // The newest few messages from whoever spoke last are still unread
+                int unread = distributions.chance(0.6) ? 0 : Math.min(thread.length(), 1 + distributions.uniform(4));
+                long lastSender = distributions.chance(0.5) ? patientId : doctorId;
+
+                long[] offsets = sortedOffsets(thread.length(), messageHistory);
+                String content = null;
+                Instant sentAt = null;
+                for (int i = 0; i < offsets.length; i++) {
+                    boolean tail = i >= offsets.length - unread;
+                    long sender = tail ? lastSender : distributions.chance(0.5) ? patientId : doctorId;
+                    content = text.message();
+                    sentAt = now.minusSeconds(messageHistory - offsets[i]);
+
+                    messages.add(++id).add(sender).add(sender == patientId ? doctorId : patientId)
+                            .add(low).add(high).add(content).add(sentAt).add(!tail)
+                            .endRow();
+                }
+
+                long receiver = lastSender == patientId ? doctorId : patientId;
+                conversations.add(new ConversationRow(low, high, id, content, sentAt,
+                        receiver == low ? unread : 0, receiver == high ? unread : 0));
+            }
+            report("messages", messages.getRows(), started);
+        }
+
+        started = System.nanoTime();
+        long conversationId = maxId(connection, "conversations");
+        try (CopyWriter rows = new CopyWriter(connection, "conversations",
+                "id", "low_user_id", "high_user_id", "last_message_id", "last_message_preview", "last_message_at",
+                "low_unread_count", "high_unread_count")) {
+            for (ConversationRow row : conversations) {
+                rows.add(++conversationId).add(row.lowUserId()).add(row.highUserId()).add(row.lastMessageId())
+                        .add(preview(row.lastMessage())).add(row.lastMessageAt())
+                        .add(row.lowUnread()).add(row.highUnread())
+                        .endRow();
+            }
+            report("conversations", rows.getRows(), started);
+        }
+    }
+
+    /**
+     * Picks which doctor-patient pairs talk and how long each thread is:
+     * Pareto lengths scaled so they add up to the requested message count
+     */
+    private List<MessageThread> planThreads() {
+        List<MessageThread> threads = new ArrayList<>();
+        long total = 0;
+        for (int p = 0; p < patients; p++) {
+            for (int doctor : grants[p]) {
+                if (distributions.chance(threadShare)) {
+                    int length = distributions.pareto(20, 1.3, maxThreadLength);
+                    threads.add(new MessageThread(p, doctor, length));
+                    total += length;
+                }
+            }
+        }
+        if (threads.isEmpty() || messageCount <= 0) {
+            return List.of();
+        }
+
+        double scale = (double) messageCount / total;
+        List<MessageThread> scaled = new ArrayList<>(threads.size());
+        for (MessageThread thread : threads) {
+            int length = (int) Math.max(1, Math.min(maxThreadLength, Math.round(thread.length() * scale)));
+            scaled.add(new MessageThread(thread.patient(), thread.doctor(), length));
+        }
+        return scaled;
+    }
+
+    /**
+     * Tops the audit trail up to --audit-rows with the RECORD_VIEWED rows a
+     * doctor opening a patient's records leaves behind
+     */
+    private void loadRecordViews(CopyWriter audit, long[] auditId) throws SQLException {
+        long started = System.nanoTime();
+        long remaining = auditRows - audit.getRows();
+        for (long i = 0; i < remaining; i++) {
+            int p = distributions.uniform(patients);
+            int doctor = grants[p][distributions.uniform(grants[p].length)];
+            Instant viewedAt = now.minusSeconds(distributions.random().nextLong(historySeconds));
+
+            audit.add(++auditId[0]).add(patientId(p)).add(names[doctors + p])
+                    .add(doctorId(doctor)).add(names[doctor]).add("DOCTOR")
+                    .add("RECORD_VIEWED").add((String) null).add((String) null)
+                    .add("Doctor viewed patient records").addNullable(null).add(viewedAt)
+                    .endRow();
+        }
+        report("audit_log (views)", Math.max(0, remaining), started);
+    }
+
+    // Move identity sequences past the loaded ids and refresh planner statistics
+    private void finish(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                        + "(SELECT COALESCE(MAX(id), 1) FROM " + table + "))");
+                statement.execute("ANALYZE " + table);
+            }
+        }
+        System.out.printf("%-20s sequences moved, tables analyzed in %ds%n", "finish",
+                Duration.ofNanos(System.nanoTime() - started).toSeconds());
+    }
+
+    private long[] sortedOffsets(int count, long span) {
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = distributions.random().nextLong(span);
+        }
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private long doctorId(int doctor) {
+        return userBase + 1 + doctor;
+    }
+
+    private long patientId(int patient) {
+        return userBase + 1 + doctors + patient;
+    }
+
+    static String email(String role, int index, String domain) {
+        return role + index + "@" + domain;
+    }
+
+    // Same truncation as Conversation.preview in the backend
+    private static String preview(String content) {
+        int length = 50;
+        return content == null || content.length() <= length ? content : content.substring(0, length) + "...";
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static void report(String table, long rows, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("%-20s %,12d rows in %6.1fs (%,.0f rows/s)%n", table, rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,83 @@
+package com.digiarogya.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded samplers for the skewed shapes real data has: a few doctors with
+ * thousands of patients, most patients with a handful of records, and a long
+ * tail of very long message threads. The same seed always gives the same
+ * sequence of draws.
+ */
+class Distributions {
+
+    private final SplittableRandom random;
+
+    Distributions(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    SplittableRandom random() {
+        return random;
+    }
+
+    /** Uniform in [0, bound) */
+    int uniform(int bound) {
+        return random.nextInt(bound);
+    }
+
+    boolean chance(double probability) {
+        return random.nextDouble() < probability;
+    }
+
+    /**
+     * Number of trials until the first success, so at least 1, with the given mean
+     */
+    int geometric(double mean) {
+        if (mean <= 1) {
+            return 1;
+        }
+        double p = 1 / mean;
+        return 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    /**
+     * Pareto draw with the given mean and shape (alpha > 1, smaller is
+     * heavier-tailed), rounded up and capped
+     */
+    int pareto(double mean, double alpha, int cap) {
+        double scale = mean * (alpha - 1) / alpha;
+        double value = scale / Math.pow(1 - random.nextDouble(), 1 / alpha);
+        return (int) Math.min(cap, Math.ceil(value));
+    }
+
+    /**
+     * Zipf over ranks 0..n-1: rank k is drawn with weight 1/(k+1)^exponent
+     */
+    Zipf zipf(int n, double exponent) {
+        return new Zipf(n, exponent);
+    }
+
+    class Zipf {
+
+        private final double[] cumulative;
+
+        private Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, exponent);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= total;
+            }
+        }
+
+        int next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : -index - 1;
+            return Math.min(rank, cumulative.length - 1);
+        }
+    }
+}
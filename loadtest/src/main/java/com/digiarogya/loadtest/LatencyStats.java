@@ -0,0 +1,108 @@
+package com.digiarogya.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per operation (an endpoint, or a whole scenario),
+ * recorded in microseconds with HdrHistogram so percentiles stay exact to
+ * three significant digits at any sample count. {@link #startMeasuring()}
+ * throws away everything recorded during warm-up.
+ */
+class LatencyStats {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private static final class Operation {
+        final Recorder recorder = new Recorder(HIGHEST_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    /** One operation's results over the measured window */
+    record Summary(String name, long count, long errors, double throughput,
+                   double meanMs, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private volatile long measuringSince = System.nanoTime();
+
+    void record(String name, long startedNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedNanos);
+        operation(name).recorder.recordValue(Math.min(Math.max(micros, 0), HIGHEST_MICROS));
+    }
+
+    void recordError(String name) {
+        operation(name).errors.increment();
+    }
+
+    void startMeasuring() {
+        for (Operation operation : operations.values()) {
+            operation.recorder.reset();
+            operation.errors.reset();
+        }
+        measuringSince = System.nanoTime();
+    }
+
+    /**
+     * Results since {@link #startMeasuring()}, sorted by name; call once, at the end
+     */
+    List<Summary> summarize() {
+        double seconds = (System.nanoTime() - measuringSince) / 1e9;
+        List<Summary> summaries = new ArrayList<>();
+        operations.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            long errors = entry.getValue().errors.sum();
+            if (count == 0 && errors == 0) {
+                return; // only ran during warm-up, e.g. logins
+            }
+            summaries.add(new Summary(entry.getKey(), count, errors, count / seconds,
+                    histogram.getMean() / 1000, millis(histogram, 50), millis(histogram, 90), millis(histogram, 99),
+                    millis(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+        });
+        return summaries;
+    }
+
+    static void print(List<Summary> summaries, Duration measured) {
+        System.out.printf("%nMeasured for %ds%n", measured.toSeconds());
+        System.out.printf("%-42s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Summary s : summaries) {
+            System.out.printf("%-42s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    s.name(), s.count(), s.errors(), s.throughput(),
+                    s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs());
+        }
+    }
+
+    static void write(Path file, Map<String, Object> settings, List<Summary> summaries) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings);
+        result.put("operations", summaries);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+    }
+
+    private Operation operation(String name) {
+        return operations.computeIfAbsent(name, n -> new Operation());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,440 @@
+package com.digiarogya.loadtest;
+
+import com.digiarogya.loadtest.ApiClient.ApiException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of the frontend's request patterns against a
+ * running backend and reports throughput and latency percentiles per
+ * endpoint and per scenario.
+ *
+ * Sessions are accounts created by {@link DataGenerator} (pass the same
+ * --doctors, --patients and --domain). By default the driver runs closed
+ * loop: --concurrency workers each start the next scenario as soon as the
+ * last one finishes. With --rate it runs open loop instead, starting that
+ * many scenarios per second whatever the response times, and measures each
+ * scenario from when it was due to start, so a stalled server shows up as
+ * latency rather than as fewer samples.
+ */
+public final class LoadDriver {
+
+    private static final String USAGE = """
+            Usage: java -cp loadtest.jar com.digiarogya.loadtest.LoadDriver [--name=value ...]
+            Runs a mixed workload against --base-url and reports latency percentiles.
+            --mix weights scenarios, e.g. dashboard:30,patient-dashboard:20,poll:35,send:5,record:7,upload:3
+            (upload writes attachments, so start the backend with BLOB_STORE=local). Options:""";
+
+    private enum Scenario {
+        /** Doctor opens the dashboard: patient list, then one patient's records */
+        DASHBOARD("dashboard", "DOCTOR"),
+        /** Patient opens the dashboard: own records and who has access */
+        PATIENT_DASHBOARD("patient-dashboard", "PATIENT"),
+        /** The messages screen refreshing: unread badge, conversation list, newer messages in one thread */
+        POLL("poll", null),
+        SEND("send", null),
+        /** Doctor adds a record for one of their patients */
+        RECORD("record", "DOCTOR"),
+        /** Doctor adds a record and attaches a file to it */
+        UPLOAD("upload", "DOCTOR");
+
+        final String key;
+        final String role;
+
+        Scenario(String key, String role) {
+            this.key = key;
+            this.role = role;
+        }
+    }
+
+    private static final class Session {
+        final long userId;
+        final String token;
+        final boolean doctor;
+        // What this user has seen so far, as a browser tab would remember it
+        volatile List<Long> patientIds;
+        volatile List<Long> contactIds;
+        final Map<Long, Long> newestSeen = new ConcurrentHashMap<>();
+
+        Session(long userId, String token, boolean doctor) {
+            this.userId = userId;
+            this.token = token;
+            this.doctor = doctor;
+        }
+    }
+
+    private final LatencyStats stats = new LatencyStats();
+    private final ApiClient api;
+
+    private final long seed;
+    private final String domain;
+    private final String password;
+    private final int doctors;
+    private final int patients;
+    private final int doctorsOnline;
+    private final int patientsOnline;
+    private final int loginConcurrency;
+    private final int concurrency;
+    private final double rate;
+    private final int maxInFlight;
+    private final Duration think;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final int uploadBytes;
+    private final Path out;
+    private final String mixSpec;
+    private final Scenario[] mix;
+    private final int[] cumulativeWeights;
+
+    private final List<Session> doctorSessions = new ArrayList<>();
+    private final List<Session> patientSessions = new ArrayList<>();
+    private byte[] uploadTemplate;
+
+    private LoadDriver(Options options) {
+        this.seed = options.longValue("seed", 42);
+        this.domain = options.string("domain", "load.test");
+        this.password = options.string("password", "LoadTest123!");
+        this.doctors = options.integer("doctors", 400);
+        this.patients = options.integer("patients", 100_000);
+        this.doctorsOnline = options.integer("doctors-online", 50);
+        this.patientsOnline = options.integer("patients-online", 200);
+        this.loginConcurrency = options.integer("login-concurrency", 8);
+        this.concurrency = options.integer("concurrency", 32);
+        this.rate = options.decimal("rate", 0);
+        this.maxInFlight = options.integer("max-in-flight", 2000);
+        this.think = options.duration("think", "0ms");
+        this.warmup = options.duration("warmup", "30s");
+        this.duration = options.duration("duration", "120s");
+        this.uploadBytes = options.integer("upload-kb", 256) * 1024;
+        this.out = Path.of(options.string("out", "loadtest-result.json"));
+        this.timeout = options.duration("timeout", "30s");
+        this.api = new ApiClient(options.string("base-url", "http://localhost:8080"), timeout, stats);
+
+        this.mixSpec = options.string("mix", "dashboard:30,patient-dashboard:20,poll:35,send:5,record:7,upload:3");
+        Map<Scenario, Integer> weights = parseMix(mixSpec);
+        this.mix = weights.keySet().toArray(Scenario[]::new);
+        this.cumulativeWeights = new int[mix.length];
+        int total = 0;
+        for (int i = 0; i < mix.length; i++) {
+            total += weights.get(mix[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        LoadDriver driver = new LoadDriver(options);
+        if (!options.check(USAGE)) {
+            return;
+        }
+        driver.run();
+    }
+
+    private void run() throws Exception {
+        logIn();
+
+        uploadTemplate = new byte[uploadBytes];
+        new Distributions(seed).random().nextBytes(uploadTemplate);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        System.out.printf("Warming up for %ds, then measuring for %ds (%s)%n", warmup.toSeconds(),
+                duration.toSeconds(), rate > 0 ? rate + " scenarios/s" : concurrency + " workers");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                LockSupport.parkNanos(measureFrom - System.nanoTime());
+                stats.startMeasuring();
+            });
+            if (rate > 0) {
+                openLoop(executor, deadline);
+            } else {
+                closedLoop(executor, deadline);
+            }
+
+            List<LatencyStats.Summary> summaries = stats.summarize();
+            LatencyStats.print(summaries, duration);
+            LatencyStats.write(out, settings(), summaries);
+            System.out.printf("Results written to %s%n", out.toAbsolutePath());
+            executor.shutdownNow();
+        }
+    }
+
+    private void logIn() throws Exception {
+        long started = System.nanoTime();
+        Distributions distributions = new Distributions(seed);
+        Semaphore permits = new Semaphore(loginConcurrency);
+        List<Future<Session>> logins = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index : sample(distributions, doctors, doctorsOnline)) {
+                logins.add(executor.submit(() -> logIn(DataGenerator.email("doctor", index, domain), permits)));
+            }
+            for (int index : sample(distributions, patients, patientsOnline)) {
+                logins.add(executor.submit(() -> logIn(DataGenerator.email("patient", index, domain), permits)));
+            }
+            for (Future<Session> login : logins) {
+                Session session = login.get();
+                (session.doctor ? doctorSessions : patientSessions).add(session);
+            }
+        }
+        System.out.printf("Logged in %d doctors and %d patients in %ds%n", doctorSessions.size(),
+                patientSessions.size(), Duration.ofNanos(System.nanoTime() - started).toSeconds());
+    }
+
+    private Session logIn(String email, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            JsonNode response = api.login(email, password);
+            return new Session(response.get("userId").asLong(), response.get("token").asText(),
+                    "DOCTOR".equals(response.get("role").asText()));
+        } catch (ApiException e) {
+            throw new IllegalStateException("Login as " + email + " failed (" + e.getMessage() + "); "
+                    + "were these accounts created by DataGenerator with the same --domain and --password?", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void closedLoop(ExecutorService executor, long deadline) throws Exception {
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            Distributions distributions = new Distributions(seed + 1 + w);
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    runScenario(distributions, System.nanoTime());
+                    if (!think.isZero()) {
+                        Thread.sleep(think);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    private void openLoop(ExecutorService executor, long deadline) throws InterruptedException {
+        Distributions distributions = new Distributions(seed + 1);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = (long) (1e9 / rate);
+        long next = System.nanoTime();
+
+        while (next < deadline) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            long due = next;
+            next += interval;
+            if (!inFlight.tryAcquire()) {
+                // The server has fallen so far behind that the driver would run out of sockets
+                stats.recordError("scenario dropped (max in flight)");
+                continue;
+            }
+            long scenarioSeed = distributions.random().nextLong();
+            executor.submit(() -> {
+                try {
+                    runScenario(new Distributions(scenarioSeed), due);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        // Scenarios due before the deadline count even if they finish after it
+        if (!inFlight.tryAcquire(maxInFlight, timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            System.out.printf("%d scenarios still running after %ds were left out%n",
+                    maxInFlight - inFlight.availablePermits(), timeout.toSeconds());
+        }
+    }
+
+    private void runScenario(Distributions distributions, long dueNanos) {
+        Scenario scenario = pickScenario(distributions);
+        List<Session> sessions = scenario.role == null
+                ? (distributions.chance(0.5) ? doctorSessions : patientSessions)
+                : "DOCTOR".equals(scenario.role) ? doctorSessions : patientSessions;
+        if (sessions.isEmpty()) {
+            return;
+        }
+        Session session = sessions.get(distributions.uniform(sessions.size()));
+
+        String label = "scenario " + scenario.key;
+        try {
+            switch (scenario) {
+                case DASHBOARD -> dashboard(session, distributions);
+                case PATIENT_DASHBOARD -> patientDashboard(session);
+                case POLL -> poll(session, distributions);
+                case SEND -> send(session, distributions);
+                case RECORD -> addRecord(session, distributions);
+                case UPLOAD -> upload(session, distributions);
+            }
+            stats.record(label, dueNanos);
+        } catch (ApiException e) {
+            stats.recordError(label);
+        }
+    }
+
+    private void dashboard(Session session, Distributions distributions) {
+        List<Long> patientIds = refreshPatients(session);
+        if (!patientIds.isEmpty()) {
+            long patientId = patientIds.get(distributions.uniform(patientIds.size()));
+            api.get("GET /api/records/{patientId}",
+                    "/api/records/" + patientId + "?page=0&size=10&includeAttachments=true", session.token);
+        }
+    }
+
+    private void patientDashboard(Session session) {
+        api.get("GET /api/records/me", "/api/records/me?page=0&size=10&includeAttachments=true", session.token);
+        api.get("GET /api/records/accesses", "/api/records/accesses", session.token);
+    }
+
+    private void poll(Session session, Distributions distributions) {
+        api.get("GET /api/messages/unread-count", "/api/messages/unread-count", session.token);
+        JsonNode conversations = api.get("GET /api/messages/conversations", "/api/messages/conversations",
+                session.token);
+        if (conversations.isEmpty()) {
+            return;
+        }
+
+        // Mostly the newest conversation, which is the one already open
+        int index = distributions.chance(0.7) ? 0 : distributions.uniform(conversations.size());
+        long otherUserId = conversations.get(index).get("otherUserId").asLong();
+        Long newestSeen = session.newestSeen.get(otherUserId);
+        JsonNode messages = api.get("GET /api/messages/conversation/{otherUserId}",
+                "/api/messages/conversation/" + otherUserId + (newestSeen != null ? "?after=" + newestSeen : ""),
+                session.token);
+        for (JsonNode message : messages) {
+            session.newestSeen.merge(otherUserId, message.get("id").asLong(), Math::max);
+        }
+    }
+
+    private void send(Session session, Distributions distributions) {
+        List<Long> contactIds = session.contactIds;
+        if (contactIds == null) {
+            List<Long> ids = new ArrayList<>();
+            api.get("GET /api/messages/contacts", "/api/messages/contacts", session.token)
+                    .forEach(contact -> ids.add(contact.get("otherUserId").asLong()));
+            session.contactIds = contactIds = ids;
+        }
+        if (!contactIds.isEmpty()) {
+            long receiverId = contactIds.get(distributions.uniform(contactIds.size()));
+            api.post("POST /api/messages", "/api/messages", session.token,
+                    Map.of("receiverId", receiverId, "content", "Load test message " + distributions.uniform(1_000_000)));
+        }
+    }
+
+    private Long addRecord(Session session, Distributions distributions) {
+        List<Long> patientIds = session.patientIds != null ? session.patientIds : refreshPatients(session);
+        if (patientIds.isEmpty()) {
+            return null;
+        }
+        long patientId = patientIds.get(distributions.uniform(patientIds.size()));
+        JsonNode created = api.post("POST /api/records/{patientId}", "/api/records/" + patientId, session.token,
+                Map.of("type", "NOTE",
+                        "title", "Load test note",
+                        "content", "Recorded by the load driver, run seed " + seed,
+                        "diagnosis", "Stable"));
+        return created.get("recordId").asLong();
+    }
+
+    private void upload(Session session, Distributions distributions) {
+        Long recordId = addRecord(session, distributions);
+        if (recordId == null) {
+            return;
+        }
+        // A unique prefix per file, so content-addressed storage cannot deduplicate the upload away
+        byte[] content = uploadTemplate.clone();
+        for (int i = 0; i < Math.min(16, content.length); i++) {
+            content[i] = (byte) distributions.uniform(256);
+        }
+        api.upload("POST /api/files/upload/{recordId}", "/api/files/upload/" + recordId, session.token,
+                "load-test-" + recordId + ".bin", "application/octet-stream", content);
+        api.get("GET /api/files/record/{recordId}", "/api/files/record/" + recordId, session.token);
+    }
+
+    private List<Long> refreshPatients(Session session) {
+        List<Long> ids = new ArrayList<>();
+        api.get("GET /api/records/patients", "/api/records/patients?page=0&size=10", session.token)
+                .get("patients").forEach(patient -> ids.add(patient.get("patientId").asLong()));
+        session.patientIds = ids;
+        return ids;
+    }
+
+    private Scenario pickScenario(Distributions distributions) {
+        int draw = distributions.uniform(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < mix.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return mix[i];
+            }
+        }
+        return mix[mix.length - 1];
+    }
+
+    private static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Scenario scenario = null;
+            for (Scenario candidate : Scenario.values()) {
+                if (candidate.key.equals(parts[0])) {
+                    scenario = candidate;
+                }
+            }
+            if (scenario == null || parts.length != 2) {
+                throw new IllegalArgumentException("Bad --mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                weights.put(scenario, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("--mix has no scenario with a positive weight");
+        }
+        return weights;
+    }
+
+    // Distinct indices in [0, bound), at most count of them
+    private static List<Integer> sample(Distributions distributions, int bound, int count) {
+        List<Integer> chosen = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        while (chosen.size() < Math.min(count, bound)) {
+            int index = distributions.uniform(bound);
+            if (seen.add(index)) {
+                chosen.add(index);
+            }
+        }
+        return chosen;
+    }
+
+    private Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("mode", rate > 0 ? "open" : "closed");
+        settings.put("concurrency", concurrency);
+        settings.put("rate", rate);
+        settings.put("warmupSeconds", warmup.toSeconds());
+        settings.put("durationSeconds", duration.toSeconds());
+        settings.put("doctorsOnline", doctorSessions.size());
+        settings.put("patientsOnline", patientSessions.size());
+        settings.put("mix", mixSpec);
+        settings.put("uploadKb", uploadBytes / 1024);
+        settings.put("seed", seed);
+        return settings;
+    }
+}
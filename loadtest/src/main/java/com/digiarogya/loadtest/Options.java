@@ -0,0 +1,88 @@
+package com.digiarogya.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command-line options of the form --name=value. Every option has a default,
+ * registered through the typed getters, so -h can list them all.
+ */
+class Options {
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final Map<String, String> defaults = new LinkedHashMap<>();
+    private final boolean help;
+
+    Options(String[] args) {
+        boolean help = false;
+        for (String arg : args) {
+            if (arg.equals("-h") || arg.equals("--help")) {
+                help = true;
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        this.help = help;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+
+    String string(String name, String defaultValue) {
+        defaults.put(name, defaultValue);
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int integer(String name, int defaultValue) {
+        return Integer.parseInt(string(name, String.valueOf(defaultValue)));
+    }
+
+    long longValue(String name, long defaultValue) {
+        return Long.parseLong(string(name, String.valueOf(defaultValue)));
+    }
+
+    double decimal(String name, double defaultValue) {
+        return Double.parseDouble(string(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Durations are written as a number with an s, m or ms suffix, e.g. 90s or 5m
+     */
+    Duration duration(String name, String defaultValue) {
+        String value = string(name, defaultValue).trim();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Bad duration for --" + name + ": " + value);
+        };
+    }
+
+    /**
+     * Fails on options nobody asked for (usually a typo), or prints the
+     * defaults when -h was given. Call after every option has been read.
+     * @return false when the program should stop after printing help
+     */
+    boolean check(String usage) {
+        if (help) {
+            System.out.println(usage);
+            defaults.forEach((name, value) -> System.out.printf("  --%s=%s%n", name, value));
+            return false;
+        }
+        for (String name : values.keySet()) {
+            if (!defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + " (try -h)");
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.digiarogya.loadtest;
+
+/**
+ * Word lists behind generated names, record text and messages. Titles and
+ * chat messages are short while record bodies run from a line to a few
+ * paragraphs, so row widths look like real data.
+ */
+class SyntheticText {
+
+    static final String[] RECORD_TYPES = {
+            "NOTE", "DIAGNOSIS", "PRESCRIPTION", "LAB_RESULT", "IMAGING", "VITALS", "PROCEDURE"
+    };
+
+    // How often each record type occurs, in RECORD_TYPES order
+    private static final double[] RECORD_TYPE_WEIGHTS = {0.30, 0.15, 0.20, 0.15, 0.05, 0.10, 0.05};
+
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Reyansh", "Krishna", "Ishaan", "Rohan", "Kabir",
+            "Ananya", "Diya", "Aadhya", "Saanvi", "Pari", "Anika", "Navya", "Myra", "Kiara", "Meera",
+            "Rahul", "Priya", "Vikram", "Sneha", "Amit", "Pooja", "Suresh", "Lakshmi", "Ravi", "Kavya"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Sharma", "Verma", "Gupta", "Iyer", "Reddy", "Nair", "Patel", "Singh", "Kumar", "Das",
+            "Mehta", "Joshi", "Rao", "Pillai", "Menon", "Chatterjee", "Banerjee", "Kapoor", "Malhotra", "Bose"
+    };
+
+    private static final String[][] TITLES = {
+            {"Follow-up visit", "General consultation", "Clinical note", "Phone consultation"},
+            {"Type 2 diabetes", "Hypertension", "Seasonal allergy", "Migraine", "Iron deficiency anaemia"},
+            {"Metformin 500mg", "Amlodipine 5mg", "Cetirizine 10mg", "Paracetamol 650mg", "Atorvastatin 10mg"},
+            {"Complete blood count", "Lipid profile", "HbA1c", "Thyroid panel", "Liver function test"},
+            {"Chest X-ray", "Abdominal ultrasound", "MRI brain", "CT scan", "ECG"},
+            {"Vitals check", "Blood pressure reading", "Weight and BMI"},
+            {"Minor suturing", "Dressing change", "Vaccination", "Ear syringing"}
+    };
+
+    private static final String[] DIAGNOSES = {
+            "Stable", "Under observation", "Improving", "Hypertension", "Type 2 diabetes",
+            "Upper respiratory infection", "Vitamin D deficiency", "No abnormality detected"
+    };
+
+    private static final String[] WORDS = (
+            "patient reports mild pain fever cough since three days no history of allergy blood pressure "
+                    + "within normal limits advised rest fluids review after one week continue current medication "
+                    + "sugar levels slightly elevated diet control recommended follow up with reports tablets twice "
+                    + "daily after food results attached please check when possible thank you doctor feeling better "
+                    + "today still some weakness should I continue the dose appointment tomorrow morning"
+    ).split(" ");
+
+    private final Distributions distributions;
+
+    SyntheticText(Distributions distributions) {
+        this.distributions = distributions;
+    }
+
+    String name() {
+        return FIRST_NAMES[distributions.uniform(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[distributions.uniform(LAST_NAMES.length)];
+    }
+
+    int recordType() {
+        double draw = distributions.random().nextDouble();
+        for (int type = 0; type < RECORD_TYPE_WEIGHTS.length; type++) {
+            draw -= RECORD_TYPE_WEIGHTS[type];
+            if (draw < 0) {
+                return type;
+            }
+        }
+        return 0;
+    }
+
+    String title(int type) {
+        String[] titles = TITLES[type];
+        return titles[distributions.uniform(titles.length)];
+    }
+
+    String diagnosis() {
+        return DIAGNOSES[distributions.uniform(DIAGNOSES.length)];
+    }
+
+    /** Record body, usually a few sentences, occasionally a long report */
+    String recordContent() {
+        int words = distributions.chance(0.1) ? 150 + distributions.uniform(350) : 15 + distributions.uniform(60);
+        return words(words);
+    }
+
+    /** Chat message, mostly short with the odd long one */
+    String message() {
+        return words(distributions.pareto(12, 2.0, 200));
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder(count * 7);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[distributions.uniform(WORDS.length)]);
+        }
+        text.setCharAt(0, Character.toUpperCase(text.charAt(0)));
+        return text.append('.').toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.digiarogya.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DistributionsTest {
+
+    @Test
+    void sameSeedGivesSameDraws() {
+        Distributions first = new Distributions(7);
+        Distributions second = new Distributions(7);
+        Distributions.Zipf firstZipf = first.zipf(400, 0.4);
+        Distributions.Zipf secondZipf = second.zipf(400, 0.4);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(firstZipf.next()).isEqualTo(secondZipf.next());
+            assertThat(first.geometric(20)).isEqualTo(second.geometric(20));
+            assertThat(first.pareto(20, 1.3, 20_000)).isEqualTo(second.pareto(20, 1.3, 20_000));
+        }
+    }
+
+    @Test
+    void zipfFavoursLowRanksButReachesTheTail() {
+        Distributions distributions = new Distributions(42);
+        Distributions.Zipf zipf = distributions.zipf(400, 0.4);
+        int[] counts = new int[400];
+        for (int i = 0; i < 150_000; i++) {
+            counts[zipf.next()]++;
+        }
+
+        // The default spread: every doctor has hundreds of patients, the busiest a few thousand
+        assertThat(counts[0]).isGreaterThan(2_000);
+        assertThat(counts[399]).isBetween(100, 400);
+        assertThat(counts[0]).isGreaterThan(5 * counts[399]);
+    }
+
+    @Test
+    void geometricAndParetoKeepTheirMeans() {
+        Distributions distributions = new Distributions(42);
+        long geometric = 0;
+        long pareto = 0;
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            int records = distributions.geometric(20);
+            assertThat(records).isPositive();
+            geometric += records;
+            pareto += distributions.pareto(12, 2.0, 200);
+        }
+
+        assertThat(geometric / (double) samples).isBetween(19.0, 21.0);
+        // The cap trims the tail a little, so the mean lands just under 12
+        assertThat(pareto / (double) samples).isBetween(10.5, 12.5);
+    }
+}